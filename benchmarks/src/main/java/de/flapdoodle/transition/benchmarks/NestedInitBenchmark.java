@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.flapdoodle.transition.GeneratedRoutes;
+import de.flapdoodle.transition.initlike.InitLike;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NestedInitBenchmark {
+
+	@Param({ "1", "10", "100" })
+	public int depth;
+
+	private InitLike init;
+
+	@Setup
+	public void setup() {
+		init = InitLike.with(GeneratedRoutes.chain(depth + 1).routes());
+	}
+
+	@Benchmark
+	public Integer nestedInitAndClose() {
+		List<InitLike.Init<Integer>> inits = new ArrayList<>();
+		InitLike.Init<Integer> current = init.init(GeneratedRoutes.stateOf(0));
+		inits.add(current);
+		for (int i = 1; i <= depth; i++) {
+			current = current.init(GeneratedRoutes.stateOf(i));
+			inits.add(current);
+		}
+		Integer result = current.current();
+		Collections.reverse(inits);
+		inits.forEach(InitLike.Init::close);
+		return result;
+	}
+}
@@ -0,0 +1,271 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import de.flapdoodle.checks.Preconditions;
+import de.flapdoodle.transition.initlike.InitListener;
+import de.flapdoodle.transition.initlike.NamedTypeAndValue;
+import de.flapdoodle.transition.processlike.ProcessListener;
+import de.flapdoodle.transition.processlike.State;
+import de.flapdoodle.transition.routes.Route;
+import de.flapdoodle.transition.routes.RoutesAsGraph;
+import de.flapdoodle.transition.routes.SingleDestination;
+import de.flapdoodle.transition.routes.SingleSource;
+
+public final class ChromeTrace {
+
+	private final long startedAt = System.nanoTime();
+	private final ConcurrentLinkedQueue<Event> events = new ConcurrentLinkedQueue<>();
+	private final ConcurrentMap<List<Object>, Thread> startedOn = new ConcurrentHashMap<>();
+
+	private ChromeTrace() {
+	}
+
+	public InitListener initListener() {
+		return new InitListener() {
+			@Override
+			public <T> void onStateReached(NamedTypeAndValue<T> stateAndValue) {
+			}
+
+			@Override
+			public <T> void onStateTearDown(NamedTypeAndValue<T> stateAndValue) {
+			}
+
+			@Override
+			public void onTransitionStarted(StateID<?> state, long startedAt) {
+				started(state, "init", startedAt);
+			}
+
+			@Override
+			public void onTransitionFinished(StateID<?> state, long startedAt, Duration duration) {
+				add(state, "init", startedAt, duration, null);
+			}
+
+			@Override
+			public void onTransitionFailed(StateID<?> state, long startedAt, Duration duration, RuntimeException error) {
+				add(state, "init", startedAt, duration, error);
+			}
+
+			@Override
+			public void onTearDownStarted(StateID<?> state, long startedAt) {
+				started(state, "tearDown", startedAt);
+			}
+
+			@Override
+			public void onTearDownFinished(StateID<?> state, long startedAt, Duration duration) {
+				add(state, "tearDown", startedAt, duration, null);
+			}
+
+			@Override
+			public void onTearDownFailed(StateID<?> state, long startedAt, Duration duration, RuntimeException error) {
+				add(state, "tearDown", startedAt, duration, error);
+			}
+		};
+	}
+
+	public ProcessListener processListener() {
+		return new ProcessListener() {
+			@Override
+			public void onStateChange(Optional<? extends State<?>> lastState, State<?> newState) {
+			}
+
+			@Override
+			public void onStateChangeFailedWithRetry(Route<?> currentRoute, Optional<? extends State<?>> lastState) {
+			}
+
+			@Override
+			public void onStepStarted(Route<?> route, long startedAt) {
+				started(route, "process", startedAt);
+			}
+
+			@Override
+			public void onStepFinished(Route<?> route, long startedAt, Duration duration) {
+				add(route, "process", startedAt, duration, null);
+			}
+
+			@Override
+			public void onStepFailed(Route<?> route, long startedAt, Duration duration, RuntimeException error) {
+				add(route, "process", startedAt, duration, error);
+			}
+		};
+	}
+
+	public int size() {
+		return events.size();
+	}
+
+	public void writeTo(Path file) {
+		Preconditions.checkNotNull(file, "file is null");
+		try {
+			Path directory = file.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+			Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+			try {
+				try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+					writeTo(writer);
+				}
+				Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			finally {
+				Files.deleteIfExists(temp);
+			}
+		}
+		catch (IOException iox) {
+			throw new UncheckedIOException("could not write trace to " + file, iox);
+		}
+	}
+
+	public void writeTo(Writer writer) throws IOException {
+		List<Event> snapshot = new ArrayList<>(events);
+		Map<Long, String> threads = new LinkedHashMap<>();
+		snapshot.forEach(event -> threads.putIfAbsent(event.threadId, event.threadName));
+
+		writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+		boolean first = true;
+		for (Map.Entry<Long, String> thread : threads.entrySet()) {
+			writer.write(first ? "\n" : ",\n");
+			first = false;
+			writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + thread.getKey()
+					+ ",\"args\":{\"name\":" + quote(thread.getValue()) + "}}");
+		}
+		for (Event event : snapshot) {
+			writer.write(first ? "\n" : ",\n");
+			first = false;
+			writer.write("{\"name\":" + quote(labelOf(event.subject))
+					+ ",\"cat\":" + quote(event.category)
+					+ ",\"ph\":\"X\",\"pid\":1,\"tid\":" + event.threadId
+					+ ",\"ts\":" + micros(event.startedAt - startedAt)
+					+ ",\"dur\":" + micros(event.duration));
+			if (event.error != null) {
+				writer.write(",\"args\":{\"error\":" + quote(String.valueOf(event.error)) + "}");
+			}
+			writer.write("}");
+		}
+		writer.write("\n]}\n");
+	}
+
+	private void started(Object subject, String category, long startedAt) {
+		startedOn.put(Arrays.asList(subject, category, startedAt), Thread.currentThread());
+	}
+
+	private void add(Object subject, String category, long startedAt, Duration duration, RuntimeException error) {
+		// async transitions finish on whatever thread completed them, the slice belongs to the thread that started it
+		Thread started = startedOn.remove(Arrays.asList(subject, category, startedAt));
+		Thread thread = started != null ? started : Thread.currentThread();
+		events.add(new Event(subject, category, thread.getId(), thread.getName(), startedAt, duration.toNanos(), error));
+	}
+
+	private static String micros(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / 1000.0);
+	}
+
+	private static String labelOf(Object subject) {
+		return subject instanceof StateID
+				? asLabel((StateID<?>) subject)
+				: asLabel((Route<?>) subject);
+	}
+
+	private static String asLabel(StateID<?> state) {
+		String type = state.type().getSimpleName();
+		return state.name().isEmpty() ? type : state.name() + ":" + type;
+	}
+
+	private static String asLabel(Route<?> route) {
+		String label = RoutesAsGraph.routeAsLabel(route);
+		if (route instanceof SingleDestination) {
+			return label + " -> " + asLabel(((SingleDestination<?>) route).destination());
+		}
+		if (route instanceof SingleSource) {
+			return label + " " + asLabel(((SingleSource<?, ?>) route).start());
+		}
+		return label;
+	}
+
+	private static String quote(String value) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			switch (c) {
+				case '"':
+					sb.append("\\\"");
+					break;
+				case '\\':
+					sb.append("\\\\");
+					break;
+				case '\n':
+					sb.append("\\n");
+					break;
+				case '\r':
+					sb.append("\\r");
+					break;
+				case '\t':
+					sb.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						sb.append(String.format("\\u%04x", (int) c));
+					} else {
+						sb.append(c);
+					}
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+	public static ChromeTrace create() {
+		return new ChromeTrace();
+	}
+
+	private static final class Event {
+		private final Object subject;
+		private final String category;
+		private final long threadId;
+		private final String threadName;
+		private final long startedAt;
+		private final long duration;
+		private final RuntimeException error;
+
+		private Event(Object subject, String category, long threadId, String threadName, long startedAt, long duration, RuntimeException error) {
+			this.subject = subject;
+			this.category = category;
+			this.threadId = threadId;
+			this.threadName = threadName;
+			this.startedAt = startedAt;
+			this.duration = duration;
+			this.error = error;
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import de.flapdoodle.transition.routes.Route;
+
+public abstract class FlightRecorderEvents {
+
+	private static final Recorder RECORDER = recorder();
+
+	private FlightRecorderEvents() {
+		// no instance
+	}
+
+	public interface Span {
+		void succeeded();
+
+		void failed(Throwable error);
+	}
+
+	public static boolean supported() {
+		return RECORDER != NoopRecorder.INSTANCE;
+	}
+
+	public static Span transition(StateID<?> state, Route<?> route) {
+		return RECORDER.transition(state, route);
+	}
+
+	public static Span tearDown(StateID<?> state) {
+		return RECORDER.tearDown(state);
+	}
+
+	public static void rollback(Collection<StateID<?>> states, Throwable cause) {
+		RECORDER.rollback(states, cause);
+	}
+
+	public static void stateChanged(StateID<?> lastState, StateID<?> newState, Route<?> route) {
+		RECORDER.stateChanged(lastState, newState, route);
+	}
+
+	public static void retry(Route<?> route, Optional<StateID<?>> state) {
+		RECORDER.retry(route, state);
+	}
+
+	public static void aborted(Route<?> route, Optional<StateID<?>> state, Throwable cause) {
+		RECORDER.aborted(route, state, cause);
+	}
+
+	interface Recorder {
+		Span transition(StateID<?> state, Route<?> route);
+
+		Span tearDown(StateID<?> state);
+
+		void rollback(Collection<StateID<?>> states, Throwable cause);
+
+		void stateChanged(StateID<?> lastState, StateID<?> newState, Route<?> route);
+
+		void retry(Route<?> route, Optional<StateID<?>> state);
+
+		void aborted(Route<?> route, Optional<StateID<?>> state, Throwable cause);
+	}
+
+	enum NoopRecorder implements Recorder, Span {
+		INSTANCE;
+
+		@Override
+		public Span transition(StateID<?> state, Route<?> route) {
+			return this;
+		}
+
+		@Override
+		public Span tearDown(StateID<?> state) {
+			return this;
+		}
+
+		@Override
+		public void rollback(Collection<StateID<?>> states, Throwable cause) {
+		}
+
+		@Override
+		public void stateChanged(StateID<?> lastState, StateID<?> newState, Route<?> route) {
+		}
+
+		@Override
+		public void retry(Route<?> route, Optional<StateID<?>> state) {
+		}
+
+		@Override
+		public void aborted(Route<?> route, Optional<StateID<?>> state, Throwable cause) {
+		}
+
+		@Override
+		public void succeeded() {
+		}
+
+		@Override
+		public void failed(Throwable error) {
+		}
+	}
+
+	private static Recorder recorder() {
+		try {
+			Class.forName("jdk.jfr.FlightRecorder");
+			return (Recorder) Class.forName(FlightRecorderEvents.class.getPackage().getName() + ".JfrRecorder")
+					.getDeclaredConstructor()
+					.newInstance();
+		}
+		catch (ReflectiveOperationException | LinkageError | RuntimeException ex) {
+			return NoopRecorder.INSTANCE;
+		}
+	}
+}
@@ -0,0 +1,225 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import de.flapdoodle.transition.FlightRecorderEvents.NoopRecorder;
+import de.flapdoodle.transition.FlightRecorderEvents.Recorder;
+import de.flapdoodle.transition.FlightRecorderEvents.Span;
+import de.flapdoodle.transition.routes.Route;
+import de.flapdoodle.transition.routes.RoutesAsGraph;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+final class JfrRecorder implements Recorder {
+
+	private static final String CATEGORY = "Flapdoodle Transition";
+
+	private static final EventType TRANSITION = EventType.getEventType(TransitionEvent.class);
+	private static final EventType TEAR_DOWN = EventType.getEventType(TearDownEvent.class);
+	private static final EventType ROLLBACK = EventType.getEventType(RollbackEvent.class);
+	private static final EventType STATE_CHANGE = EventType.getEventType(StateChangeEvent.class);
+	private static final EventType RETRY = EventType.getEventType(RetryEvent.class);
+	private static final EventType ABORT = EventType.getEventType(AbortEvent.class);
+
+	@Override
+	public Span transition(StateID<?> state, Route<?> route) {
+		if (!TRANSITION.isEnabled()) {
+			return NoopRecorder.INSTANCE;
+		}
+		TransitionEvent event = new TransitionEvent();
+		event.state = state.name();
+		event.stateType = state.type().getName();
+		event.routeType = routeTypeOf(route);
+		event.begin();
+		return new EventSpan(event, error -> event.error = error);
+	}
+
+	@Override
+	public Span tearDown(StateID<?> state) {
+		if (!TEAR_DOWN.isEnabled()) {
+			return NoopRecorder.INSTANCE;
+		}
+		TearDownEvent event = new TearDownEvent();
+		event.state = state.name();
+		event.stateType = state.type().getName();
+		event.begin();
+		return new EventSpan(event, error -> event.error = error);
+	}
+
+	@Override
+	public void rollback(Collection<StateID<?>> states, Throwable cause) {
+		if (ROLLBACK.isEnabled()) {
+			RollbackEvent event = new RollbackEvent();
+			event.states = states.stream().map(JfrRecorder::asLabel).collect(Collectors.joining(", "));
+			event.error = String.valueOf(cause);
+			event.commit();
+		}
+	}
+
+	@Override
+	public void stateChanged(StateID<?> lastState, StateID<?> newState, Route<?> route) {
+		if (STATE_CHANGE.isEnabled()) {
+			StateChangeEvent event = new StateChangeEvent();
+			event.lastState = lastState != null ? asLabel(lastState) : null;
+			event.state = newState.name();
+			event.stateType = newState.type().getName();
+			event.routeType = routeTypeOf(route);
+			event.commit();
+		}
+	}
+
+	@Override
+	public void retry(Route<?> route, Optional<StateID<?>> state) {
+		if (RETRY.isEnabled()) {
+			RetryEvent event = new RetryEvent();
+			event.state = state.map(StateID::name).orElse(null);
+			event.stateType = state.map(s -> s.type().getName()).orElse(null);
+			event.routeType = routeTypeOf(route);
+			event.commit();
+		}
+	}
+
+	@Override
+	public void aborted(Route<?> route, Optional<StateID<?>> state, Throwable cause) {
+		if (ABORT.isEnabled()) {
+			AbortEvent event = new AbortEvent();
+			event.state = state.map(StateID::name).orElse(null);
+			event.stateType = state.map(s -> s.type().getName()).orElse(null);
+			event.routeType = routeTypeOf(route);
+			event.error = String.valueOf(cause);
+			event.commit();
+		}
+	}
+
+	private static String routeTypeOf(Route<?> route) {
+		return route != null ? RoutesAsGraph.routeAsLabel(route) : null;
+	}
+
+	private static String asLabel(StateID<?> state) {
+		return state.name() + ":" + state.type().getName();
+	}
+
+	private static final class EventSpan implements Span {
+		private final Event event;
+		private final Consumer<String> onError;
+
+		private EventSpan(Event event, Consumer<String> onError) {
+			this.event = event;
+			this.onError = onError;
+		}
+
+		@Override
+		public void succeeded() {
+			event.commit();
+		}
+
+		@Override
+		public void failed(Throwable error) {
+			onError.accept(String.valueOf(error));
+			event.commit();
+		}
+	}
+
+	@Name("de.flapdoodle.transition.Transition")
+	@Label("Transition")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static final class TransitionEvent extends Event {
+		@Label("State")
+		String state;
+		@Label("State Type")
+		String stateType;
+		@Label("Route Type")
+		String routeType;
+		@Label("Error")
+		String error;
+	}
+
+	@Name("de.flapdoodle.transition.TearDown")
+	@Label("TearDown")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static final class TearDownEvent extends Event {
+		@Label("State")
+		String state;
+		@Label("State Type")
+		String stateType;
+		@Label("Error")
+		String error;
+	}
+
+	@Name("de.flapdoodle.transition.Rollback")
+	@Label("Rollback")
+	@Category(CATEGORY)
+	static final class RollbackEvent extends Event {
+		@Label("States")
+		String states;
+		@Label("Error")
+		String error;
+	}
+
+	@Name("de.flapdoodle.transition.StateChange")
+	@Label("Process State Change")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static final class StateChangeEvent extends Event {
+		@Label("Last State")
+		String lastState;
+		@Label("State")
+		String state;
+		@Label("State Type")
+		String stateType;
+		@Label("Route Type")
+		String routeType;
+	}
+
+	@Name("de.flapdoodle.transition.Retry")
+	@Label("Process Retry")
+	@Category(CATEGORY)
+	@StackTrace(false)
+	static final class RetryEvent extends Event {
+		@Label("State")
+		String state;
+		@Label("State Type")
+		String stateType;
+		@Label("Route Type")
+		String routeType;
+	}
+
+	@Name("de.flapdoodle.transition.Abort")
+	@Label("Process Abort")
+	@Category(CATEGORY)
+	static final class AbortEvent extends Event {
+		@Label("State")
+		String state;
+		@Label("State Type")
+		String stateType;
+		@Label("Route Type")
+		String routeType;
+		@Label("Error")
+		String error;
+	}
+}
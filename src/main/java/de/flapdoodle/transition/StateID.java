@@ -17,6 +17,7 @@
 package de.flapdoodle.transition;
 
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -24,7 +25,7 @@ import java.util.stream.Stream;
 import org.immutables.value.Value;
 import org.immutables.value.Value.Parameter;
 
-@Value.Immutable
+@Value.Immutable(prehash = true)
 public interface StateID<T> {
 	@Parameter
 	String name();
@@ -41,6 +42,6 @@ public interface StateID<T> {
 	}
 
 	public static Set<StateID<?>> setOf(StateID<?>... namedTypes) {
-		return Collections.unmodifiableSet(Stream.of(namedTypes).collect(Collectors.toSet()));
+		return Collections.unmodifiableSet(Stream.of(namedTypes).collect(Collectors.<StateID<?>, Set<StateID<?>>> toCollection(LinkedHashSet::new)));
 	}
 }
@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition;
+
+import java.util.Collection;
+
+import de.flapdoodle.checks.Preconditions;
+
+public final class StateIndex {
+
+	private final StateID<?>[] states;
+	private final StateID<?>[] table;
+	private final int[] ordinals;
+	private final int mask;
+
+	private StateIndex(StateID<?>[] states, StateID<?>[] table, int[] ordinals) {
+		this.states = states;
+		this.table = table;
+		this.ordinals = ordinals;
+		this.mask = table.length - 1;
+	}
+
+	public int size() {
+		return states.length;
+	}
+
+	public StateID<?> stateOf(int ordinal) {
+		return states[ordinal];
+	}
+
+	public boolean contains(StateID<?> state) {
+		return indexOf(state) >= 0;
+	}
+
+	public int ordinalOf(StateID<?> state) {
+		int ordinal = indexOf(state);
+		Preconditions.checkArgument(ordinal >= 0, "state %s is not part of this index", state);
+		return ordinal;
+	}
+
+	public int indexOf(StateID<?> state) {
+		for (int slot = spread(state.hashCode()) & mask;; slot = (slot + 1) & mask) {
+			StateID<?> current = table[slot];
+			if (current == null) {
+				return -1;
+			}
+			if (current == state || current.equals(state)) {
+				return ordinals[slot];
+			}
+		}
+	}
+
+	public static StateIndex of(Collection<? extends StateID<?>> states) {
+		StateID<?>[] asArray = states.toArray(new StateID<?>[0]);
+
+		int capacity = Integer.highestOneBit(Math.max(4, asArray.length * 2 - 1)) << 1;
+		StateID<?>[] table = new StateID<?>[capacity];
+		int[] ordinals = new int[capacity];
+		int mask = capacity - 1;
+
+		for (int ordinal = 0; ordinal < asArray.length; ordinal++) {
+			StateID<?> state = Preconditions.checkNotNull(asArray[ordinal], "state is null");
+			int slot = spread(state.hashCode()) & mask;
+			while (table[slot] != null) {
+				Preconditions.checkArgument(!table[slot].equals(state), "state %s is not unique", state);
+				slot = (slot + 1) & mask;
+			}
+			table[slot] = state;
+			ordinals[slot] = ordinal;
+		}
+		return new StateIndex(asArray, table, ordinals);
+	}
+
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public abstract class TransitionExecutors {
+
+	public static boolean virtualThreadsSupported() {
+		return VirtualThreads.EXECUTOR.isPresent();
+	}
+
+	public static Executor threadPerTransition() {
+		return VirtualThreads.EXECUTOR.isPresent()
+				? VirtualThreads.EXECUTOR.get()::execute
+				: PlatformThreads.EXECUTOR::execute;
+	}
+
+	public static Executor delayed(long delay, TimeUnit unit) {
+		return runnable -> DelayScheduler.EXECUTOR.schedule(runnable, delay, unit);
+	}
+
+	private static final class VirtualThreads {
+		private static final Optional<ExecutorService> EXECUTOR = virtualThreadPerTaskExecutor();
+	}
+
+	private static final class PlatformThreads {
+		private static final ExecutorService EXECUTOR = cachedPlatformThreadPool();
+	}
+
+	private static final class DelayScheduler {
+		private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(daemonThreads("transition-scheduler-"));
+	}
+
+	private static Optional<ExecutorService> virtualThreadPerTaskExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return Optional.of((ExecutorService) factory.invoke(null));
+		}
+		catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException | RuntimeException e) {
+			return Optional.empty();
+		}
+	}
+
+	private static ExecutorService cachedPlatformThreadPool() {
+		// transitions may block on nested inits, a bounded pool would starve
+		return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+				daemonThreads("transition-"));
+	}
+
+	private static ThreadFactory daemonThreads(String prefix) {
+		AtomicInteger counter = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
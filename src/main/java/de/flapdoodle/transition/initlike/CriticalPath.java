@@ -0,0 +1,204 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.initlike;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.jgrapht.DirectedGraph;
+import org.jgrapht.traverse.TopologicalOrderIterator;
+
+import de.flapdoodle.checks.Preconditions;
+import de.flapdoodle.transition.StateID;
+import de.flapdoodle.transition.routes.RoutesAsGraph;
+import de.flapdoodle.transition.routes.RoutesAsGraph.RouteAndVertex;
+import de.flapdoodle.transition.routes.SingleDestination;
+
+public final class CriticalPath {
+
+	private final DirectedGraph<StateID<?>, RouteAndVertex> graph;
+	private final Map<StateID<?>, Duration> durations;
+	private final Map<StateID<?>, Long> earliestStart;
+	private final Map<StateID<?>, Long> slack;
+	private final List<StateID<?>> path;
+	private final long minimumWallTime;
+
+	private CriticalPath(DirectedGraph<StateID<?>, RouteAndVertex> graph, Map<StateID<?>, Duration> durations,
+			Map<StateID<?>, Long> earliestStart, Map<StateID<?>, Long> slack, List<StateID<?>> path, long minimumWallTime) {
+		this.graph = graph;
+		this.durations = durations;
+		this.earliestStart = earliestStart;
+		this.slack = slack;
+		this.path = Collections.unmodifiableList(path);
+		this.minimumWallTime = minimumWallTime;
+	}
+
+	public List<StateID<?>> path() {
+		return path;
+	}
+
+	public Duration minimumWallTime() {
+		return Duration.ofNanos(minimumWallTime);
+	}
+
+	public Set<StateID<?>> states() {
+		return Collections.unmodifiableSet(durations.keySet());
+	}
+
+	public Duration durationOf(StateID<?> state) {
+		return Duration.ofNanos(nanosOf(state));
+	}
+
+	public Duration earliestStartOf(StateID<?> state) {
+		return Duration.ofNanos(lookup(earliestStart, state));
+	}
+
+	public Duration slackOf(StateID<?> state) {
+		return Duration.ofNanos(lookup(slack, state));
+	}
+
+	public String asText() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("critical path: ")
+				.append(path.stream().map(CriticalPath::asLabel).collect(Collectors.joining(" -> ")))
+				.append("\n");
+		sb.append("minimum wall time: ").append(asMillis(minimumWallTime)).append("\n");
+		durations.keySet().stream()
+				.sorted((a, b) -> Long.compare(earliestStart.get(a), earliestStart.get(b)))
+				.forEach(state -> sb.append(String.format(Locale.ROOT, "%s %-30s duration=%s start=%s slack=%s%n",
+						path.contains(state) ? "*" : " ",
+						asLabel(state),
+						asMillis(nanosOf(state)),
+						asMillis(earliestStart.get(state)),
+						asMillis(slack.get(state)))));
+		return sb.toString();
+	}
+
+	public String asDot(String label) {
+		return RoutesAsGraph.routeGraphAsDot(label, graph, RoutesAsGraph::routeAsLabel, state -> {
+			Map<String, String> attributes = new LinkedHashMap<>();
+			if (durations.containsKey(state)) {
+				attributes.put("label", asLabel(state) + "\n" + asMillis(nanosOf(state)) + " (slack " + asMillis(slack.get(state)) + ")");
+			}
+			if (path.contains(state)) {
+				attributes.put("color", "red");
+				attributes.put("penwidth", "2");
+			}
+			return attributes;
+		});
+	}
+
+	private long nanosOf(StateID<?> state) {
+		Duration duration = durations.get(state);
+		Preconditions.checkArgument(duration != null, "state %s was not measured", state);
+		return duration.toNanos();
+	}
+
+	private static long lookup(Map<StateID<?>, Long> map, StateID<?> state) {
+		Long value = map.get(state);
+		Preconditions.checkArgument(value != null, "state %s was not measured", state);
+		return value;
+	}
+
+	private static String asLabel(StateID<?> state) {
+		String type = state.type().getSimpleName();
+		return state.name().isEmpty() ? type : state.name() + ":" + type;
+	}
+
+	private static String asMillis(long nanos) {
+		return String.format(Locale.ROOT, "%.1fms", nanos / 1_000_000.0);
+	}
+
+	public static CriticalPath of(InitRoutes<SingleDestination<?>> routes, TransitionTimings timings) {
+		return of(routes, timings.transitions().entrySet().stream()
+				.collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().mean())));
+	}
+
+	public static CriticalPath of(InitRoutes<SingleDestination<?>> routes, Map<StateID<?>, Duration> durations) {
+		Preconditions.checkNotNull(routes, "routes is null");
+		Preconditions.checkNotNull(durations, "durations is null");
+
+		DirectedGraph<StateID<?>, RouteAndVertex> graph = RoutesAsGraph.asGraph(routes.all());
+		Function<StateID<?>, Long> durationOf = state -> durations.containsKey(state) ? durations.get(state).toNanos() : 0L;
+
+		List<StateID<?>> order = new ArrayList<>();
+		new TopologicalOrderIterator<>(graph).forEachRemaining(order::add);
+
+		Map<StateID<?>, Long> earliestFinish = new LinkedHashMap<>();
+		Map<StateID<?>, StateID<?>> criticalSource = new LinkedHashMap<>();
+		long total = 0;
+		StateID<?> last = null;
+		for (StateID<?> state : order) {
+			long start = 0;
+			for (RouteAndVertex edge : graph.incomingEdgesOf(state)) {
+				long sourceFinish = earliestFinish.get(edge.start());
+				if (!criticalSource.containsKey(state) || sourceFinish > start) {
+					start = sourceFinish;
+					criticalSource.put(state, edge.start());
+				}
+			}
+			long finish = start + durationOf.apply(state);
+			earliestFinish.put(state, finish);
+			if (durations.containsKey(state) && (last == null || finish > total)) {
+				total = finish;
+				last = state;
+			}
+		}
+
+		Map<StateID<?>, Long> latestFinish = new LinkedHashMap<>();
+		for (int i = order.size() - 1; i >= 0; i--) {
+			StateID<?> state = order.get(i);
+			long finish = total;
+			for (RouteAndVertex edge : graph.outgoingEdgesOf(state)) {
+				if (durations.containsKey(edge.end())) {
+					finish = Math.min(finish, latestFinish.get(edge.end()) - durationOf.apply(edge.end()));
+				}
+			}
+			latestFinish.put(state, finish);
+		}
+
+		Map<StateID<?>, Long> earliestStart = new LinkedHashMap<>();
+		Map<StateID<?>, Long> slack = new LinkedHashMap<>();
+		Map<StateID<?>, Duration> measured = new LinkedHashMap<>();
+		for (StateID<?> state : order) {
+			if (durations.containsKey(state)) {
+				long start = earliestFinish.get(state) - durationOf.apply(state);
+				earliestStart.put(state, start);
+				slack.put(state, latestFinish.get(state) - earliestFinish.get(state));
+				measured.put(state, durations.get(state));
+			}
+		}
+
+		List<StateID<?>> path = new ArrayList<>();
+		for (StateID<?> current = last; current != null; current = criticalSource.get(current)) {
+			if (durations.containsKey(current)) {
+				path.add(current);
+			}
+		}
+		Collections.reverse(path);
+
+		return new CriticalPath(graph, measured, earliestStart, slack, path, total);
+	}
+}
@@ -0,0 +1,241 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.initlike;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import de.flapdoodle.checks.Preconditions;
+
+public final class Deadline {
+
+	private static final long UNLIMITED = Long.MAX_VALUE;
+
+	private final long expiresAt;
+	private final Set<Running> running = new LinkedHashSet<>();
+	private boolean cancelled = false;
+
+	private Deadline(long expiresAt) {
+		this.expiresAt = expiresAt;
+	}
+
+	public static Deadline none() {
+		return new Deadline(UNLIMITED);
+	}
+
+	public static Deadline after(Duration timeout) {
+		Preconditions.checkArgument(!timeout.isNegative(), "negative timeout: %s", timeout);
+		return new Deadline(System.nanoTime() + timeout.toNanos());
+	}
+
+	public void cancel() {
+		synchronized (running) {
+			cancelled = true;
+			running.forEach(Running::abort);
+		}
+	}
+
+	public boolean isCancelled() {
+		synchronized (running) {
+			return cancelled;
+		}
+	}
+
+	public boolean isExpired() {
+		return expiresAt != UNLIMITED && System.nanoTime() - expiresAt >= 0;
+	}
+
+	public void check() {
+		if (isCancelled()) {
+			throw new CancellationException("cancelled");
+		}
+		if (isExpired()) {
+			throw new DeadlineExceededException("deadline exceeded");
+		}
+	}
+
+	<T> T call(Optional<Duration> timeout, Supplier<T> call, Consumer<T> onLateResult) {
+		check();
+
+		Thread current = Thread.currentThread();
+		Running registration = new Running(current::interrupt);
+		long startedAt = System.nanoTime();
+		long limit = limitOf(timeout);
+		ScheduledFuture<?> watchdog = register(registration, limit);
+
+		T result = null;
+		RuntimeException failure = null;
+		try {
+			result = call.get();
+		}
+		catch (RuntimeException rx) {
+			failure = rx;
+		}
+		finally {
+			if (unregister(registration, watchdog)) {
+				Thread.interrupted();
+			}
+		}
+
+		if (failure != null) {
+			throw abortReason(registration, timeout, failure).orElse(failure);
+		}
+		if (isLate(registration, startedAt, limit)) {
+			onLateResult.accept(result);
+			throw abortReason(registration, timeout, null).get();
+		}
+		return result;
+	}
+
+	<T> CompletableFuture<T> callAsync(Optional<Duration> timeout, Supplier<? extends CompletionStage<T>> call, Consumer<T> onLateResult) {
+		check();
+
+		CompletableFuture<T> result = new CompletableFuture<>();
+		Running registration = new Running(() -> result.completeExceptionally(new CancellationException("aborted")));
+		ScheduledFuture<?> watchdog = register(registration, limitOf(timeout));
+
+		try {
+			call.get().whenComplete((value, ex) -> {
+				unregister(registration, watchdog);
+				if (ex != null) {
+					result.completeExceptionally(ex);
+				} else if (!result.complete(value)) {
+					onLateResult.accept(value);
+				}
+			});
+		}
+		catch (RuntimeException rx) {
+			unregister(registration, watchdog);
+			result.completeExceptionally(rx);
+		}
+
+		return result.handle((value, ex) -> {
+			if (ex != null) {
+				RuntimeException failure = ex instanceof RuntimeException ? (RuntimeException) ex : new RuntimeException(ex);
+				throw abortReason(registration, timeout, failure).orElse(failure);
+			}
+			return value;
+		});
+	}
+
+	private long limitOf(Optional<Duration> timeout) {
+		return Math.min(remainingNanos(), timeout.map(Duration::toNanos).orElse(UNLIMITED));
+	}
+
+	private ScheduledFuture<?> register(Running registration, long limit) {
+		synchronized (running) {
+			running.add(registration);
+		}
+		if (limit == UNLIMITED) {
+			return null;
+		}
+		return Watchdog.EXECUTOR.schedule(() -> {
+			synchronized (running) {
+				if (running.contains(registration)) {
+					registration.timedOut = true;
+					registration.abort();
+				}
+			}
+		}, limit, TimeUnit.NANOSECONDS);
+	}
+
+	private boolean unregister(Running registration, ScheduledFuture<?> watchdog) {
+		if (watchdog != null) {
+			watchdog.cancel(false);
+		}
+		synchronized (running) {
+			running.remove(registration);
+			return registration.aborted;
+		}
+	}
+
+	private boolean isLate(Running registration, long startedAt, long limit) {
+		synchronized (running) {
+			if (!registration.aborted) {
+				if (limit != UNLIMITED && System.nanoTime() - startedAt >= limit) {
+					registration.aborted = true;
+					registration.timedOut = true;
+				}
+				else if (cancelled) {
+					registration.aborted = true;
+				}
+			}
+			return registration.aborted;
+		}
+	}
+
+	private Optional<RuntimeException> abortReason(Running registration, Optional<Duration> timeout, RuntimeException cause) {
+		synchronized (running) {
+			if (!registration.aborted) {
+				return Optional.empty();
+			}
+			if (registration.timedOut) {
+				return Optional.of(isExpired()
+						? new DeadlineExceededException("deadline exceeded", cause)
+						: new DeadlineExceededException("timeout after " + timeout.map(Duration::toString).orElse("?"), cause));
+			}
+			CancellationException cancelled = new CancellationException("cancelled");
+			cancelled.initCause(cause);
+			return Optional.of(cancelled);
+		}
+	}
+
+	private long remainingNanos() {
+		return expiresAt == UNLIMITED
+				? UNLIMITED
+				: Math.max(0, expiresAt - System.nanoTime());
+	}
+
+	private static final class Running {
+		private final Runnable onAbort;
+		private boolean aborted = false;
+		private boolean timedOut = false;
+
+		private Running(Runnable onAbort) {
+			this.onAbort = onAbort;
+		}
+
+		private void abort() {
+			aborted = true;
+			onAbort.run();
+		}
+	}
+
+	private static final class Watchdog {
+		private static final ScheduledThreadPoolExecutor EXECUTOR = watchdog();
+
+		private static ScheduledThreadPoolExecutor watchdog() {
+			ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+				Thread thread = new Thread(runnable, "deadline-watchdog");
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.setRemoveOnCancelPolicy(true);
+			return executor;
+		}
+	}
+}
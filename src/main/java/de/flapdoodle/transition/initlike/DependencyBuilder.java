@@ -16,11 +16,20 @@
  */
 package de.flapdoodle.transition.initlike;
 
+import java.time.Duration;
+import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
+import de.flapdoodle.checks.Preconditions;
 import de.flapdoodle.transition.StateID;
+import de.flapdoodle.transition.initlike.transitions.AsyncBridgeTransition;
+import de.flapdoodle.transition.initlike.transitions.AsyncMerge3Transition;
+import de.flapdoodle.transition.initlike.transitions.AsyncMergeTransition;
+import de.flapdoodle.transition.initlike.transitions.AsyncStartTransition;
 import de.flapdoodle.transition.initlike.transitions.BridgeTransition;
+import de.flapdoodle.transition.initlike.transitions.DeferredBridgeTransition;
+import de.flapdoodle.transition.initlike.transitions.DeferredMergeTransition;
 import de.flapdoodle.transition.initlike.transitions.Merge3Transition;
 import de.flapdoodle.transition.initlike.transitions.MergeTransition;
 import de.flapdoodle.transition.initlike.transitions.StartTransition;
@@ -83,6 +92,16 @@ public class DependencyBuilder {
 		return this;
 	}
 
+	private <T> DependencyBuilder startAsync(StateID<T> type, AsyncStartTransition<T> transition) {
+		builder.addAsync(Start.of(type), transition);
+		return this;
+	}
+
+	private <T> DependencyBuilder replaceStartAsync(StateID<T> type, AsyncStartTransition<T> transition) {
+		builder.replaceAsync(Start.of(type), transition);
+		return this;
+	}
+
 
 
 	private <S, D> DependencyBuilder bridge(StateID<S> source, StateID<D> destination,
@@ -97,6 +116,31 @@ public class DependencyBuilder {
 		return this;
 	}
 
+	private <S, D> DependencyBuilder bridgeAsync(StateID<S> source, StateID<D> destination,
+			AsyncBridgeTransition<S, D> transition) {
+		builder.addAsync(Bridge.of(source, destination), transition);
+		return this;
+	}
+
+	private <S, D> DependencyBuilder replaceBridgeAsync(StateID<S> source, StateID<D> destination,
+			AsyncBridgeTransition<S, D> transition) {
+		builder.replaceAsync(Bridge.of(source, destination), transition);
+		return this;
+	}
+
+
+	private <S, D> DependencyBuilder bridgeDeferred(StateID<S> source, StateID<D> destination,
+			DeferredBridgeTransition<S, D> transition) {
+		builder.addDeferred(Bridge.of(source, destination), transition);
+		return this;
+	}
+
+	private <S, D> DependencyBuilder replaceBridgeDeferred(StateID<S> source, StateID<D> destination,
+			DeferredBridgeTransition<S, D> transition) {
+		builder.replaceDeferred(Bridge.of(source, destination), transition);
+		return this;
+	}
+
 
 
 	private <L, R, D> DependencyBuilder merge(StateID<L> left, StateID<R> right, StateID<D> destination,
@@ -111,6 +155,31 @@ public class DependencyBuilder {
 		return this;
 	}
 
+	private <L, R, D> DependencyBuilder mergeAsync(StateID<L> left, StateID<R> right, StateID<D> destination,
+			AsyncMergeTransition<L, R, D> transition) {
+		builder.addAsync(MergingJunction.of(left, right, destination), transition);
+		return this;
+	}
+
+	private <L, R, D> DependencyBuilder replaceMergeAsync(StateID<L> left, StateID<R> right, StateID<D> destination,
+			AsyncMergeTransition<L, R, D> transition) {
+		builder.replaceAsync(MergingJunction.of(left, right, destination), transition);
+		return this;
+	}
+
+
+	private <L, R, D> DependencyBuilder mergeDeferred(StateID<L> left, StateID<R> right, StateID<D> destination,
+			DeferredMergeTransition<L, R, D> transition) {
+		builder.addDeferred(MergingJunction.of(left, right, destination), transition);
+		return this;
+	}
+
+	private <L, R, D> DependencyBuilder replaceMergeDeferred(StateID<L> left, StateID<R> right, StateID<D> destination,
+			DeferredMergeTransition<L, R, D> transition) {
+		builder.replaceDeferred(MergingJunction.of(left, right, destination), transition);
+		return this;
+	}
+
 
 
 	private <L, M, R, D> DependencyBuilder merge3(StateID<L> left, StateID<M> middle, StateID<R> right,
@@ -127,8 +196,27 @@ public class DependencyBuilder {
 		return this;
 	}
 
+	private <L, M, R, D> DependencyBuilder merge3Async(StateID<L> left, StateID<M> middle, StateID<R> right,
+			StateID<D> destination,
+			AsyncMerge3Transition<L, M, R, D> transition) {
+		builder.addAsync(Merge3Junction.of(left, middle, right, destination), transition);
+		return this;
+	}
+
+	private <L, M, R, D> DependencyBuilder replaceMerge3Async(StateID<L> left, StateID<M> middle, StateID<R> right,
+			StateID<D> destination,
+			AsyncMerge3Transition<L, M, R, D> transition) {
+		builder.replaceAsync(Merge3Junction.of(left, middle, right, destination), transition);
+		return this;
+	}
 
 
+
+	private DependencyBuilder options(SingleDestination<?> route, RouteOptions options) {
+		builder.options(route, options);
+		return this;
+	}
+
 	public DependencyBuilder addAll(InitRoutes<SingleDestination<?>> routes) {
 		builder.addAll(routes);
 		return this;
@@ -166,6 +254,9 @@ public class DependencyBuilder {
 		private final DependencyBuilder parent;
 		private final StateID<T> type;
 		private boolean replace = false;
+		private RouteOptions options = RouteOptions.defaults();
+		private Optional<StartCache> cache = Optional.empty();
+		private String fingerprint;
 
 		public StartBuilder(DependencyBuilder parent, StateID<T> type) {
 			this.parent = parent;
@@ -177,10 +268,43 @@ public class DependencyBuilder {
 			return this;
 		}
 
+		public StartBuilder<T> timeout(Duration timeout) {
+			options = RouteOptions.builder().from(options).timeout(timeout).build();
+			return this;
+		}
+
+		public StartBuilder<T> shared() {
+			options = RouteOptions.builder().from(options).shared(true).build();
+			return this;
+		}
+
+		public StartBuilder<T> lazy() {
+			options = RouteOptions.builder().from(options).lazy(true).build();
+			return this;
+		}
+
+		public StartBuilder<T> cachedIn(StartCache cache, String fingerprint) {
+			this.cache = Optional.of(Preconditions.checkNotNull(cache, "cache is null"));
+			this.fingerprint = Preconditions.checkNotNull(fingerprint, "fingerprint is null");
+			return this;
+		}
+
 		public DependencyBuilder isReachedBy(StartTransition<T> transition) {
-			return replace
-					? parent.replaceStart(type, transition)
-					: parent.start(type, transition);
+			StartTransition<T> cachedTransition = cache.isPresent()
+					? cache.get().cached(type, fingerprint, transition)
+					: transition;
+			return (replace
+					? parent.replaceStart(type, cachedTransition)
+					: parent.start(type, cachedTransition))
+					.options(Start.of(type), options);
+		}
+
+		public DependencyBuilder isReachedByAsync(AsyncStartTransition<T> transition) {
+			Preconditions.checkArgument(!cache.isPresent(), "async start of %s can not be cached", type);
+			return (replace
+					? parent.replaceStartAsync(type, transition)
+					: parent.startAsync(type, transition))
+					.options(Start.of(type), options);
 		}
 
 		public DependencyBuilder isInitializedWith(T value) {
@@ -214,6 +338,7 @@ public class DependencyBuilder {
 		private final StateID<S> source;
 		private final StateID<D> destination;
 		private boolean replace = false;
+		private RouteOptions options = RouteOptions.defaults();
 
 		public BridgeBuilder(DependencyBuilder parent, StateID<S> source, StateID<D> destination) {
 			this.parent = parent;
@@ -226,10 +351,40 @@ public class DependencyBuilder {
 			return this;
 		}
 
+		public BridgeBuilder<S, D> timeout(Duration timeout) {
+			options = RouteOptions.builder().from(options).timeout(timeout).build();
+			return this;
+		}
+
+		public BridgeBuilder<S, D> shared() {
+			options = RouteOptions.builder().from(options).shared(true).build();
+			return this;
+		}
+
+		public BridgeBuilder<S, D> lazy() {
+			options = RouteOptions.builder().from(options).lazy(true).build();
+			return this;
+		}
+
 		public DependencyBuilder isReachedBy(BridgeTransition<S, D> transition) {
-			return replace
+			return (replace
 					? parent.replaceBridge(source, destination, transition)
-					: parent.bridge(source, destination, transition);
+					: parent.bridge(source, destination, transition))
+					.options(Bridge.of(source, destination), options);
+		}
+
+		public DependencyBuilder isReachedByAsync(AsyncBridgeTransition<S, D> transition) {
+			return (replace
+					? parent.replaceBridgeAsync(source, destination, transition)
+					: parent.bridgeAsync(source, destination, transition))
+					.options(Bridge.of(source, destination), options);
+		}
+
+		public DependencyBuilder isReachedByDeferred(DeferredBridgeTransition<S, D> transition) {
+			return (replace
+					? parent.replaceBridgeDeferred(source, destination, transition)
+					: parent.bridgeDeferred(source, destination, transition))
+					.options(Bridge.of(source, destination), options);
 		}
 
 		public DependencyBuilder isDerivedBy(Function<S, D> transition) {
@@ -266,6 +421,7 @@ public class DependencyBuilder {
 		private final StateID<R> right;
 		private final StateID<D> destination;
 		private boolean replace = false;
+		private RouteOptions options = RouteOptions.defaults();
 
 		public MergeBuilder(DependencyBuilder parent, StateID<L> left, StateID<R> right,
 				StateID<D> destination) {
@@ -280,10 +436,40 @@ public class DependencyBuilder {
 			return this;
 		}
 
+		public MergeBuilder<L, R, D> timeout(Duration timeout) {
+			options = RouteOptions.builder().from(options).timeout(timeout).build();
+			return this;
+		}
+
+		public MergeBuilder<L, R, D> shared() {
+			options = RouteOptions.builder().from(options).shared(true).build();
+			return this;
+		}
+
+		public MergeBuilder<L, R, D> lazy() {
+			options = RouteOptions.builder().from(options).lazy(true).build();
+			return this;
+		}
+
 		public DependencyBuilder isReachedBy(MergeTransition<L, R, D> transition) {
-			return replace
+			return (replace
 					? parent.replaceMerge(left, right, destination, transition)
-					: parent.merge(left, right, destination, transition);
+					: parent.merge(left, right, destination, transition))
+					.options(MergingJunction.of(left, right, destination), options);
+		}
+
+		public DependencyBuilder isReachedByAsync(AsyncMergeTransition<L, R, D> transition) {
+			return (replace
+					? parent.replaceMergeAsync(left, right, destination, transition)
+					: parent.mergeAsync(left, right, destination, transition))
+					.options(MergingJunction.of(left, right, destination), options);
+		}
+
+		public DependencyBuilder isReachedByDeferred(DeferredMergeTransition<L, R, D> transition) {
+			return (replace
+					? parent.replaceMergeDeferred(left, right, destination, transition)
+					: parent.mergeDeferred(left, right, destination, transition))
+					.options(MergingJunction.of(left, right, destination), options);
 		}
 
 		public DependencyBuilder isDerivedBy(BiFunction<L, R, D> transition) {
@@ -324,6 +510,7 @@ public class DependencyBuilder {
 		private final StateID<R> right;
 		private final StateID<D> destination;
 		private boolean replace = false;
+		private RouteOptions options = RouteOptions.defaults();
 
 		public Merge3Builder(DependencyBuilder parent, StateID<L> left, StateID<M> middle,
 				StateID<R> right,
@@ -340,10 +527,33 @@ public class DependencyBuilder {
 			return this;
 		}
 
+		public Merge3Builder<L, M, R, D> timeout(Duration timeout) {
+			options = RouteOptions.builder().from(options).timeout(timeout).build();
+			return this;
+		}
+
+		public Merge3Builder<L, M, R, D> shared() {
+			options = RouteOptions.builder().from(options).shared(true).build();
+			return this;
+		}
+
+		public Merge3Builder<L, M, R, D> lazy() {
+			options = RouteOptions.builder().from(options).lazy(true).build();
+			return this;
+		}
+
 		public DependencyBuilder isReachedBy(Merge3Transition<L, M, R, D> transition) {
-			return replace
+			return (replace
 					? parent.replaceMerge3(left, middle, right, destination, transition)
-					: parent.merge3(left, middle, right, destination, transition);
+					: parent.merge3(left, middle, right, destination, transition))
+					.options(Merge3Junction.of(left, middle, right, destination), options);
+		}
+
+		public DependencyBuilder isReachedByAsync(AsyncMerge3Transition<L, M, R, D> transition) {
+			return (replace
+					? parent.replaceMerge3Async(left, middle, right, destination, transition)
+					: parent.merge3Async(left, middle, right, destination, transition))
+					.options(Merge3Junction.of(left, middle, right, destination), options);
 		}
 
 		public DependencyBuilder isDerivedBy(TriFunction<L, M, R, D> transition) {
@@ -0,0 +1,198 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.initlike;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import org.jgrapht.DirectedGraph;
+
+import de.flapdoodle.transition.StateID;
+import de.flapdoodle.transition.StateIndex;
+import de.flapdoodle.transition.routes.RoutesAsGraph.RouteAndVertex;
+
+final class DependencyIndex {
+
+	private final StateIndex states;
+	private final int[][] sources;
+	private final BitSet[] dependencies;
+	private final int[] levels;
+
+	private DependencyIndex(StateIndex states, int[][] sources, BitSet[] dependencies, int[] levels) {
+		this.states = states;
+		this.sources = sources;
+		this.dependencies = dependencies;
+		this.levels = levels;
+	}
+
+	public boolean contains(StateID<?> state) {
+		return states.contains(state);
+	}
+
+	public int ordinalOf(StateID<?> state) {
+		return states.ordinalOf(state);
+	}
+
+	public int indexOf(StateID<?> state) {
+		return states.indexOf(state);
+	}
+
+	public StateID<?> stateOf(int ordinal) {
+		return states.stateOf(ordinal);
+	}
+
+	public int size() {
+		return states.size();
+	}
+
+	public boolean isDependencyOf(StateID<?> source, StateID<?> destination) {
+		return dependencies[ordinalOf(destination)].get(ordinalOf(source));
+	}
+
+	public Set<StateID<?>> dependenciesOf(StateID<?> destination) {
+		return asSet(dependencies[ordinalOf(destination)]);
+	}
+
+	public List<Set<StateID<?>>> levelsOf(StateID<?> destination) {
+		return levelsOf(Collections.singleton(destination));
+	}
+
+	public List<Set<StateID<?>>> levelsOf(Collection<? extends StateID<?>> destinations) {
+		BitSet cone = new BitSet(size());
+		for (StateID<?> destination : destinations) {
+			int ordinal = ordinalOf(destination);
+			cone.or(dependencies[ordinal]);
+			cone.set(ordinal);
+		}
+		return levelsOf(cone);
+	}
+
+	public List<Set<StateID<?>>> levelsOf(Collection<? extends StateID<?>> destinations, IntPredicate deferred) {
+		BitSet cone = new BitSet(size());
+		Deque<Integer> open = new ArrayDeque<>();
+		for (StateID<?> destination : destinations) {
+			int ordinal = ordinalOf(destination);
+			if (!cone.get(ordinal)) {
+				cone.set(ordinal);
+				open.add(ordinal);
+			}
+		}
+		while (!open.isEmpty()) {
+			for (int source : sources[open.poll()]) {
+				if (!cone.get(source) && !deferred.test(source)) {
+					cone.set(source);
+					open.add(source);
+				}
+			}
+		}
+		return levelsOf(cone);
+	}
+
+	private List<Set<StateID<?>>> levelsOf(BitSet cone) {
+		int maxLevel = 0;
+		for (int i = cone.nextSetBit(0); i >= 0; i = cone.nextSetBit(i + 1)) {
+			maxLevel = Math.max(maxLevel, levels[i]);
+		}
+
+		List<Set<StateID<?>>> ret = new ArrayList<>();
+		for (int i = 0; i <= maxLevel; i++) {
+			ret.add(new LinkedHashSet<>());
+		}
+		for (int i = cone.nextSetBit(0); i >= 0; i = cone.nextSetBit(i + 1)) {
+			ret.get(levels[i]).add(states.stateOf(i));
+		}
+		ret.removeIf(Set::isEmpty);
+		ret.replaceAll(Collections::unmodifiableSet);
+		return Collections.unmodifiableList(ret);
+	}
+
+	private Set<StateID<?>> asSet(BitSet bits) {
+		Set<StateID<?>> ret = new LinkedHashSet<>();
+		for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+			ret.add(states.stateOf(i));
+		}
+		return Collections.unmodifiableSet(ret);
+	}
+
+	public static Optional<DependencyIndex> ofAcyclic(DirectedGraph<StateID<?>, RouteAndVertex> graph) {
+		StateIndex states = StateIndex.of(graph.vertexSet());
+		int size = states.size();
+
+		int[][] sources = new int[size][];
+		int[] missingSources = new int[size];
+		for (int i = 0; i < size; i++) {
+			sources[i] = graph.incomingEdgesOf(states.stateOf(i)).stream()
+					.mapToInt(edge -> states.ordinalOf(edge.start()))
+					.distinct()
+					.toArray();
+			missingSources[i] = sources[i].length;
+		}
+
+		int[][] destinations = new int[size][];
+		for (int i = 0; i < size; i++) {
+			destinations[i] = graph.outgoingEdgesOf(states.stateOf(i)).stream()
+					.mapToInt(edge -> states.ordinalOf(edge.end()))
+					.distinct()
+					.toArray();
+		}
+
+		BitSet[] dependencies = new BitSet[size];
+		int[] levels = new int[size];
+
+		Deque<Integer> ready = new ArrayDeque<>();
+		for (int i = 0; i < size; i++) {
+			if (missingSources[i] == 0) {
+				ready.add(i);
+			}
+		}
+
+		int visited = 0;
+		while (!ready.isEmpty()) {
+			int current = ready.poll();
+			visited++;
+
+			BitSet currentDependencies = new BitSet(size);
+			int level = 0;
+			for (int source : sources[current]) {
+				currentDependencies.or(dependencies[source]);
+				currentDependencies.set(source);
+				level = Math.max(level, levels[source] + 1);
+			}
+			dependencies[current] = currentDependencies;
+			levels[current] = level;
+
+			for (int destination : destinations[current]) {
+				if (--missingSources[destination] == 0) {
+					ready.add(destination);
+				}
+			}
+		}
+
+		return visited == size
+				? Optional.of(new DependencyIndex(states, sources, dependencies, levels))
+				: Optional.empty();
+	}
+}
@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.initlike;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+
+import de.flapdoodle.transition.StateID;
+
+final class ExecutionPlan {
+
+	private final Set<StateID<?>> destinations;
+	private final List<int[]> levels;
+
+	private ExecutionPlan(Set<StateID<?>> destinations, List<int[]> levels) {
+		this.destinations = destinations;
+		this.levels = Collections.unmodifiableList(levels);
+	}
+
+	public Set<StateID<?>> destinations() {
+		return destinations;
+	}
+
+	public List<int[]> levels() {
+		return levels;
+	}
+
+	public static ExecutionPlan of(DependencyIndex dependencyIndex, Set<StateID<?>> destinations) {
+		return of(dependencyIndex, destinations, dependencyIndex.levelsOf(destinations));
+	}
+
+	public static ExecutionPlan of(DependencyIndex dependencyIndex, Set<StateID<?>> destinations, IntPredicate deferred) {
+		return of(dependencyIndex, destinations, dependencyIndex.levelsOf(destinations, deferred));
+	}
+
+	private static ExecutionPlan of(DependencyIndex dependencyIndex, Set<StateID<?>> destinations, List<Set<StateID<?>>> levels) {
+		return new ExecutionPlan(destinations, levels.stream()
+				.map(level -> level.stream().mapToInt(dependencyIndex::ordinalOf).toArray())
+				.collect(Collectors.toList()));
+	}
+}
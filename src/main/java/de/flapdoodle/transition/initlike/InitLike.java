@@ -17,8 +17,10 @@
 package de.flapdoodle.transition.initlike;
 
 import java.lang.reflect.Type;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -26,25 +28,34 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.jgrapht.DirectedGraph;
-import org.jgrapht.alg.DijkstraShortestPath;
 import org.jgrapht.graph.UnmodifiableDirectedGraph;
 
 import de.flapdoodle.checks.Preconditions;
 import de.flapdoodle.graph.Graphs;
 import de.flapdoodle.graph.Loop;
-import de.flapdoodle.graph.VerticesAndEdges;
+import de.flapdoodle.transition.FlightRecorderEvents;
+import de.flapdoodle.transition.FlightRecorderEvents.Span;
 import de.flapdoodle.transition.StateID;
+import de.flapdoodle.transition.TransitionExecutors;
+import de.flapdoodle.transition.initlike.resolver.AsyncTransitionResolver;
 import de.flapdoodle.transition.initlike.resolver.StateOfNamedType;
 import de.flapdoodle.transition.initlike.resolver.TransitionResolver;
 import de.flapdoodle.transition.routes.Route.Transition;
 import de.flapdoodle.transition.routes.RoutesAsGraph;
-import de.flapdoodle.transition.routes.RoutesAsGraph.RouteAndVertex;
 import de.flapdoodle.transition.routes.SingleDestination;
 
 public class InitLike {
@@ -53,58 +64,148 @@ public class InitLike {
 
 	private final Context context;
 
-	private InitLike(InitRoutes<SingleDestination<?>> routes, UnmodifiableDirectedGraph<StateID<?>, RoutesAsGraph.RouteAndVertex> routesAsGraph,
-			Map<StateID<?>, List<SingleDestination<?>>> routeByDestination) {
-		this.context = new Context(routes, routesAsGraph, routeByDestination);
+	private InitLike(Context context) {
+		this.context = context;
 	}
 
 	public <D> Init<D> init(StateID<D> destination, InitListener...listener) {
-		return context.init(new LinkedHashMap<>(), destination, Collections.unmodifiableList(Arrays.asList(listener)));
+		return init(destination, Deadline.none(), listener);
 	}
 
-	private static Map<StateID<?>, State<?>> resolve(DirectedGraph<StateID<?>, RoutesAsGraph.RouteAndVertex> routesAsGraph,
-			InitRoutes<SingleDestination<?>> routes, Map<StateID<?>, List<SingleDestination<?>>> routeByDestination, Set<StateID<?>> destinations,
-			StateOfNamedType stateOfType, List<InitListener> initListener) {
-		Map<StateID<?>, State<?>> ret = new LinkedHashMap<>();
-		for (StateID<?> destination : destinations) {
-			ret.put(destination, resolve(routesAsGraph, routes, routeByDestination, destination, stateOfType, initListener));
+	public <D> Init<D> init(StateID<D> destination, Deadline deadline, InitListener...listener) {
+		return context.init(context.emptyStates, destination, Collections.unmodifiableList(Arrays.asList(listener)),
+				Preconditions.checkNotNull(deadline, "deadline is null"));
+	}
+
+	public Inits init(Set<StateID<?>> destinations, InitListener...listener) {
+		return init(destinations, Deadline.none(), listener);
+	}
+
+	public Inits init(Set<StateID<?>> destinations, Deadline deadline, InitListener...listener) {
+		return context.init(context.emptyStates, destinations, Collections.unmodifiableList(Arrays.asList(listener)),
+				Preconditions.checkNotNull(deadline, "deadline is null"));
+	}
+
+	public Set<StateID<?>> dependenciesOf(StateID<?> state) {
+		Preconditions.checkArgument(context.dependencyIndex.contains(state), "state %s is not part of this init process", asMessage(state));
+		return context.dependencyIndex.dependenciesOf(state);
+	}
+
+	public <D> CompletionStage<Init<D>> initAsync(StateID<D> destination, Executor executor, InitListener... listener) {
+		return initAsync(destination, executor, Deadline.none(), listener);
+	}
+
+	public <D> CompletionStage<Init<D>> initAsync(StateID<D> destination, Executor executor, Deadline deadline, InitListener... listener) {
+		return context.initAsync(context.emptyStates, destination, Collections.unmodifiableList(Arrays.asList(listener)),
+				Preconditions.checkNotNull(executor, "executor is null"), Preconditions.checkNotNull(deadline, "deadline is null"));
+	}
+
+	public <D> Init<D> reInit(Init<D> running) {
+		return reInit(running, Deadline.none());
+	}
+
+	public <D> Init<D> reInit(Init<D> running, Deadline deadline) {
+		Preconditions.checkNotNull(running, "running is null");
+		return context.reInit(running, Preconditions.checkNotNull(deadline, "deadline is null"));
+	}
+
+	public Inits reInit(Inits running) {
+		return reInit(running, Deadline.none());
+	}
+
+	public Inits reInit(Inits running, Deadline deadline) {
+		Preconditions.checkNotNull(running, "running is null");
+		return context.reInit(running, Preconditions.checkNotNull(deadline, "deadline is null"));
+	}
+
+	public InitLike parallel(Executor executor) {
+		return new InitLike(context.withExecutor(Preconditions.checkNotNull(executor, "executor is null")));
+	}
+
+	public InitLike parallelTearDown(Executor executor) {
+		return new InitLike(context.withTearDownExecutor(Preconditions.checkNotNull(executor, "executor is null")));
+	}
+
+	public InitLike threadPerTransition() {
+		return parallel(TransitionExecutors.threadPerTransition());
+	}
+
+	private static RuntimeException unwrap(Throwable ex) {
+		Throwable cause = ex instanceof CompletionException && ex.getCause() != null
+				? ex.getCause()
+				: ex;
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		return new CompletionException(cause);
+	}
+
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		}
+		catch (CompletionException cx) {
+			throw unwrap(cx);
 		}
-		return ret;
 	}
 
-	private static <D> State<D> resolve(DirectedGraph<StateID<?>, RoutesAsGraph.RouteAndVertex> routesAsGraph, InitRoutes<SingleDestination<?>> routes,
-			Map<StateID<?>, List<SingleDestination<?>>> routeByDestination, StateID<D> destination, StateOfNamedType stateOfType, List<InitListener> initListener) {
-		Function<StateOfNamedType, State<D>> resolver = resolverOf(routesAsGraph, routes, routeByDestination, destination);
-		State<D> state = resolver.apply(stateOfType);
-		NamedTypeAndState<D> typeAndState = NamedTypeAndState.of(destination, state);
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static void notifyStateReached(List<InitListener> initListener, StateID<?> destination, State<?> state) {
+		NamedTypeAndState<?> typeAndState = NamedTypeAndState.of((StateID) destination, state);
 		initListener.forEach(listener -> {
 			listener.onStateReached(typeAndState.asTypeAndValue());
 		});
-		return state;
 	}
 
-	private static <D> Function<StateOfNamedType, State<D>> resolverOf(DirectedGraph<StateID<?>, RoutesAsGraph.RouteAndVertex> routesAsGraph,
+	private static void notifyTransitionStarted(List<InitListener> initListener, StateID<?> state, long startedAt) {
+		initListener.forEach(listener -> listener.onTransitionStarted(state, startedAt));
+	}
+
+	private static void notifyTransitionFinished(List<InitListener> initListener, StateID<?> state, long startedAt) {
+		Duration duration = Duration.ofNanos(System.nanoTime() - startedAt);
+		initListener.forEach(listener -> listener.onTransitionFinished(state, startedAt, duration));
+	}
+
+	private static void notifyTransitionFailed(List<InitListener> initListener, StateID<?> state, long startedAt, RuntimeException error) {
+		Duration duration = Duration.ofNanos(System.nanoTime() - startedAt);
+		initListener.forEach(listener -> listener.onTransitionFailed(state, startedAt, duration, error));
+	}
+
+	private static <D> Function<StateOfNamedType, State<D>> resolverOf(Collection<TransitionResolver> transitionResolvers,
 			InitRoutes<SingleDestination<?>> routes, Map<StateID<?>, List<SingleDestination<?>>> routeByDestination, StateID<D> destination) {
-		Preconditions.checkArgument(routesAsGraph.containsVertex(destination), "routes does not contain %s", asMessage(destination));
+		List<SingleDestination<?>> routeForThisDestination = routeByDestination.get(destination);
+		if (routeForThisDestination == null || routeForThisDestination.size() != 1) {
+			// fail on execution, so that the rollback of already reached states is done
+			return stateOfType -> {
+				SingleDestination<D> route = routeOf(routeByDestination, destination);
+				return resolverOf(transitionResolvers, route, routes.transitionOf(route)).apply(stateOfType);
+			};
+		}
 		SingleDestination<D> route = routeOf(routeByDestination, destination);
 		Transition<D> transition = routes.transitionOf(route);
-		return resolverOf(route, transition);
+		return resolverOf(transitionResolvers, route, transition);
 	}
 
-	private static Collection<VerticesAndEdges<StateID<?>, RouteAndVertex>> dependenciesOf(
-			DirectedGraph<StateID<?>, RoutesAsGraph.RouteAndVertex> routesAsGraph, StateID<?> destination) {
-		DirectedGraph<StateID<?>, RouteAndVertex> filtered = Graphs.filter(routesAsGraph,
-				v -> v.equals(destination) || isDependencyOf(routesAsGraph, v, destination));
-		Collection<VerticesAndEdges<StateID<?>, RouteAndVertex>> roots = Graphs.rootsOf(filtered);
-		// System.out.println("dependencies -> ");
-		// roots.forEach(System.out::println);
-		return roots;
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static <D> Optional<Function<StateOfNamedType, CompletionStage<State<?>>>> asyncResolverOf(InitRoutes<SingleDestination<?>> routes,
+			Map<StateID<?>, List<SingleDestination<?>>> routeByDestination, StateID<D> destination) {
+		List<SingleDestination<?>> routeForThisDestination = routeByDestination.get(destination);
+		if (routeForThisDestination == null || routeForThisDestination.size() != 1) {
+			return Optional.empty();
+		}
+		SingleDestination<D> route = routeOf(routeByDestination, destination);
+		return (Optional) AsyncTransitionResolver.resolverOf(AsyncTransitionResolver.defaultResolvers(), route, routes.transitionOf(route));
 	}
 
-	private static boolean isDependencyOf(DirectedGraph<StateID<?>, RoutesAsGraph.RouteAndVertex> routesAsGraph, StateID<?> source,
+	private static RouteOptions optionsOf(InitRoutes<SingleDestination<?>> routes, Map<StateID<?>, List<SingleDestination<?>>> routeByDestination,
 			StateID<?> destination) {
-		List<RouteAndVertex> ret = DijkstraShortestPath.findPathBetween(routesAsGraph, source, destination);
-		return ret != null && !ret.isEmpty();
+		List<SingleDestination<?>> routeForThisDestination = routeByDestination.get(destination);
+		return routeForThisDestination != null && routeForThisDestination.size() == 1
+				? routes.optionsOf(routeForThisDestination.get(0))
+				: RouteOptions.defaults();
 	}
 
 	private static void printGraphAsDot(DirectedGraph<StateID<?>, RoutesAsGraph.RouteAndVertex> routesAsGraph) {
@@ -114,8 +215,9 @@ public class InitLike {
 		System.out.println("---------------------");
 	}
 
-	private static <D> Function<StateOfNamedType, State<D>> resolverOf(SingleDestination<D> route, Transition<D> transition) {
-		Optional<Function<StateOfNamedType, State<D>>> optResolver = TransitionResolver.resolverOf(TransitionResolver.defaultResolvers(), route, transition);
+	private static <D> Function<StateOfNamedType, State<D>> resolverOf(Collection<TransitionResolver> transitionResolvers, SingleDestination<D> route,
+			Transition<D> transition) {
+		Optional<Function<StateOfNamedType, State<D>>> optResolver = TransitionResolver.resolverOf(transitionResolvers, route, transition);
 		Preconditions.checkArgument(optResolver.isPresent(), "could not find resolver for %s(%s)", route, transition);
 		Function<StateOfNamedType, State<D>> resolver = optResolver.get();
 		return resolver;
@@ -130,81 +232,559 @@ public class InitLike {
 		return (SingleDestination<D>) routeForThisDestination.get(0);
 	}
 
+	private interface Resolver extends Function<StateOfNamedType, State<?>> {
+
+	}
+
+	private interface AsyncResolver extends Function<StateOfNamedType, CompletionStage<State<?>>> {
+
+	}
+
 	private static class Context {
 
-		private final InitRoutes<SingleDestination<?>> routes;
-		private final UnmodifiableDirectedGraph<StateID<?>, RoutesAsGraph.RouteAndVertex> routesAsGraph;
-		private final Map<StateID<?>, List<SingleDestination<?>>> routeByDestination;
+		private final DependencyIndex dependencyIndex;
+		private final SingleDestination<?>[] routes;
+		private final BitSet replaced;
+		private final Resolver[] resolvers;
+		private final AsyncResolver[] asyncResolvers;
+		private final RouteOptions[] options;
+		private final ConcurrentMap<Set<StateID<?>>, ExecutionPlan> planCache;
+		private final Optional<Executor> executor;
+		private final Optional<Executor> tearDownExecutor;
+		private final SharedStates sharedStates;
+		private final StateStore emptyStates;
+		private final BitSet deferrable;
 
-		private Context(InitRoutes<SingleDestination<?>> routes, UnmodifiableDirectedGraph<StateID<?>, RoutesAsGraph.RouteAndVertex> routesAsGraph,
-				Map<StateID<?>, List<SingleDestination<?>>> routeByDestination) {
+		private Context(DependencyIndex dependencyIndex, SingleDestination<?>[] routes, BitSet replaced,
+				Resolver[] resolvers, AsyncResolver[] asyncResolvers, RouteOptions[] options,
+				ConcurrentMap<Set<StateID<?>>, ExecutionPlan> planCache, SharedStates sharedStates, Optional<Executor> executor,
+				Optional<Executor> tearDownExecutor) {
+			this.dependencyIndex = dependencyIndex;
 			this.routes = routes;
-			this.routesAsGraph = routesAsGraph;
-			this.routeByDestination = routeByDestination;
+			this.replaced = replaced;
+			this.resolvers = resolvers;
+			this.asyncResolvers = asyncResolvers;
+			this.options = options;
+			this.planCache = planCache;
+			this.sharedStates = sharedStates;
+			this.executor = executor;
+			this.tearDownExecutor = tearDownExecutor;
+			this.emptyStates = StateStore.empty(dependencyIndex);
+			this.deferrable = deferrableOf(dependencyIndex, options);
+		}
+
+		private static BitSet deferrableOf(DependencyIndex dependencyIndex, RouteOptions[] options) {
+			BitSet ret = new BitSet(options.length);
+			for (int i = 0; i < options.length; i++) {
+				if (options[i].lazy()) {
+					ret.set(i);
+					for (StateID<?> dependency : dependencyIndex.dependenciesOf(dependencyIndex.stateOf(i))) {
+						ret.set(dependencyIndex.ordinalOf(dependency));
+					}
+				}
+			}
+			return ret;
+		}
+
+		private Context withExecutor(Executor executor) {
+			return new Context(dependencyIndex, routes, replaced, resolvers, asyncResolvers, options, planCache, sharedStates, Optional.of(executor), tearDownExecutor);
+		}
+
+		private Context withTearDownExecutor(Executor tearDownExecutor) {
+			return new Context(dependencyIndex, routes, replaced, resolvers, asyncResolvers, options, planCache, sharedStates, executor, Optional.of(tearDownExecutor));
+		}
+
+		private ExecutionPlan planOf(Set<StateID<?>> destinations) {
+			return planCache.computeIfAbsent(destinations, d -> ExecutionPlan.of(dependencyIndex, d, ordinal -> options[ordinal].lazy()));
+		}
+
+		private <D> Init<D> init(StateStore currentStates, StateID<D> destination, List<InitListener> initListener,
+				Deadline deadline) {
+			return init(currentStates, Collections.singleton(destination), initListener, deadline, initOf(destination, initListener));
+		}
+
+		private Inits init(StateStore currentStates, Set<StateID<?>> destinations, List<InitListener> initListener, Deadline deadline) {
+			Set<StateID<?>> copy = Collections.unmodifiableSet(new LinkedHashSet<>(destinations));
+			return init(currentStates, copy, initListener, deadline, initsOf(copy, initListener));
+		}
+
+		private <D> BiFunction<List<Collection<NamedTypeAndState<?>>>, StateStore, Init<D>> initOf(StateID<D> destination,
+				List<InitListener> initListener) {
+			return (initializedStates, states) -> new Init<D>(this, initializedStates, states, destination, states.get(destination), initListener);
+		}
+
+		private BiFunction<List<Collection<NamedTypeAndState<?>>>, StateStore, Inits> initsOf(Set<StateID<?>> destinations,
+				List<InitListener> initListener) {
+			return (initializedStates, states) -> new Inits(this, initializedStates, states, destinations, initListener);
 		}
 
-		private <D> Init<D> init(Map<StateID<?>, State<?>> currentStateMap, StateID<D> destination, List<InitListener> initListener) {
-			Preconditions.checkArgument(!currentStateMap.containsKey(destination), "state %s already initialized", asMessage(destination));
-			Preconditions.checkArgument(routesAsGraph.containsVertex(destination), "state %s is not part of this init process", asMessage(destination));
-			// printGraphAsDot(routesAsGraph);
+		private <H> H init(StateStore currentStates, Set<StateID<?>> destinations, List<InitListener> initListener, Deadline deadline,
+				BiFunction<List<Collection<NamedTypeAndState<?>>>, StateStore, H> handle) {
+			checkDestinations(currentStates, destinations);
 
-			Map<StateID<?>, State<?>> stateMap = new LinkedHashMap<>(currentStateMap);
+			if (executor.isPresent()) {
+				return join(initAsync(currentStates, destinations, initListener, executor.get(), deadline, handle));
+			}
+
+			Run run = new Run(currentStates, initListener, deadline);
 			List<Collection<NamedTypeAndState<?>>> initializedStates = new ArrayList<>();
 
-			Collection<VerticesAndEdges<StateID<?>, RouteAndVertex>> dependencies = dependenciesOf(routesAsGraph, destination);
-			for (VerticesAndEdges<StateID<?>, RouteAndVertex> set : dependencies) {
-				Set<StateID<?>> needInitialization = filterNotIn(stateMap.keySet(), set.vertices());
+			ExecutionPlan plan = planOf(destinations);
+			for (int[] level : plan.levels()) {
+				int[] needInitialization = filterNotIn(run.states, level);
+				Map<StateID<?>, State<?>> newStatesAsMap = new LinkedHashMap<>();
 				try {
-					Map<StateID<?>, State<?>> newStatesAsMap = resolve(routesAsGraph, routes, routeByDestination, needInitialization,
-							new MapBasedStateOfNamedType(stateMap), initListener);
-					if (!newStatesAsMap.isEmpty()) {
-						initializedStates.add(asNamedTypeAndState(newStatesAsMap));
-						stateMap.putAll(newStatesAsMap);
-					}
+					resolve(newStatesAsMap, needInitialization, run);
 				}
 				catch (RuntimeException ex) {
-					tearDown(initializedStates, initListener);
-					throw new RuntimeException("error on transition to " + asMessage(needInitialization) + ", rollback", ex);
+					FlightRecorderEvents.rollback(statesOf(needInitialization), ex);
+					run.completed(initializedStates, newStatesAsMap);
+					Collections.reverse(initializedStates);
+					tearDown(initializedStates, initListener, Optional.empty());
+					throw new RuntimeException("error on transition to " + asMessage(statesOf(needInitialization)) + ", rollback", ex);
 				}
+				run.completed(initializedStates, newStatesAsMap);
 			}
 
 			Collections.reverse(initializedStates);
 
-			return new Init<D>(this, initializedStates, stateMap, destination, stateOfMap(stateMap, destination), initListener);
+			return handle.apply(initializedStates, run.states);
+		}
+
+		private void resolve(Map<StateID<?>, State<?>> newStates, int[] destinations, Run run) {
+			for (int destination : destinations) {
+				StateID<?> stateID = dependencyIndex.stateOf(destination);
+				State<?> state = options[destination].shared()
+						? join(acquire(destination, run))
+						: start(destination, run);
+				newStates.put(stateID, state);
+				notifyStateReached(run.initListener, stateID, state);
+			}
+		}
+
+		private State<?> start(int destination, Run run) {
+			return asyncResolvers[destination] != null
+					? join(resolveAsync(destination, run))
+					: resolve(destination, run);
+		}
+
+		private CompletableFuture<State<?>> startAsync(int destination, Run run) {
+			if (options[destination].shared()) {
+				return acquire(destination, run);
+			}
+			return asyncResolvers[destination] != null
+					? resolveAsync(destination, run)
+					: CompletableFuture.completedFuture(resolve(destination, run));
+		}
+
+		private CompletableFuture<State<?>> acquire(int destination, Run run) {
+			return sharedStates.acquire(destination, run.deadline, deadline -> asyncResolvers[destination] != null
+					? resolveAsync(destination, run.with(deadline))
+					: CompletableFuture.completedFuture(resolve(destination, run.with(deadline))));
+		}
+
+		private State<?> resolve(int destination, Run run) {
+			StateID<?> stateID = dependencyIndex.stateOf(destination);
+			long startedAt = System.nanoTime();
+			notifyTransitionStarted(run.initListener, stateID, startedAt);
+			Span span = FlightRecorderEvents.transition(stateID, routes[destination]);
+			try {
+				State<?> state = run.deadline.call(options[destination].timeout(), () -> resolvers[destination].apply(run), InitLike::tearDown);
+				span.succeeded();
+				notifyTransitionFinished(run.initListener, stateID, startedAt);
+				return state;
+			}
+			catch (RuntimeException rx) {
+				span.failed(rx);
+				notifyTransitionFailed(run.initListener, stateID, startedAt, rx);
+				throw rx;
+			}
+		}
+
+		private CompletableFuture<State<?>> resolveAsync(int destination, Run run) {
+			StateID<?> stateID = dependencyIndex.stateOf(destination);
+			long startedAt = System.nanoTime();
+			notifyTransitionStarted(run.initListener, stateID, startedAt);
+			Span span = FlightRecorderEvents.transition(stateID, routes[destination]);
+			return run.deadline.callAsync(options[destination].timeout(), () -> asyncResolvers[destination].apply(run), InitLike::tearDown)
+					.whenComplete((state, ex) -> {
+						if (ex != null) {
+							span.failed(unwrap(ex));
+							notifyTransitionFailed(run.initListener, stateID, startedAt, unwrap(ex));
+						} else {
+							span.succeeded();
+							notifyTransitionFinished(run.initListener, stateID, startedAt);
+						}
+					});
+		}
+
+		private <D> CompletableFuture<Init<D>> initAsync(StateStore currentStates, StateID<D> destination,
+				List<InitListener> initListener, Executor executor, Deadline deadline) {
+			return initAsync(currentStates, Collections.singleton(destination), initListener, executor, deadline, initOf(destination, initListener));
+		}
+
+		private <H> CompletableFuture<H> initAsync(StateStore currentStates, Set<StateID<?>> destinations,
+				List<InitListener> initListener, Executor executor, Deadline deadline,
+				BiFunction<List<Collection<NamedTypeAndState<?>>>, StateStore, H> handle) {
+			try {
+				checkDestinations(currentStates, destinations);
+			}
+			catch (RuntimeException rx) {
+				CompletableFuture<H> ret = new CompletableFuture<>();
+				ret.completeExceptionally(rx);
+				return ret;
+			}
+
+			Run run = new Run(currentStates, initListener, deadline);
+			List<Collection<NamedTypeAndState<?>>> initializedStates = new ArrayList<>();
+
+			CompletableFuture<Void> levels = CompletableFuture.completedFuture(null);
+			for (int[] level : planOf(destinations).levels()) {
+				levels = levels.thenCompose(ignore -> resolveAsync(run, initializedStates, level, initListener, executor));
+			}
+
+			return levels.thenApply(ignore -> {
+				Collections.reverse(initializedStates);
+				return handle.apply(initializedStates, run.states);
+			});
+		}
+
+		private CompletableFuture<Void> resolveAsync(Run run, List<Collection<NamedTypeAndState<?>>> initializedStates,
+				int[] level, List<InitListener> initListener, Executor executor) {
+			int[] needInitialization = filterNotIn(run.states, level);
+			Map<StateID<?>, State<?>> newStatesAsMap = new LinkedHashMap<>();
+			return resolveAsync(newStatesAsMap, needInitialization, run, initListener, executor)
+					.handle((ignore, ex) -> {
+						run.completed(initializedStates, newStatesAsMap);
+						if (ex != null) {
+							FlightRecorderEvents.rollback(statesOf(needInitialization), unwrap(ex));
+							Collections.reverse(initializedStates);
+							tearDown(initializedStates, initListener, Optional.empty());
+							throw new RuntimeException("error on transition to " + asMessage(statesOf(needInitialization)) + ", rollback", unwrap(ex));
+						}
+						return null;
+					});
+		}
+
+		private CompletableFuture<Void> resolveAsync(Map<StateID<?>, State<?>> newStates, int[] destinations, Run run,
+				List<InitListener> initListener, Executor executor) {
+			Map<StateID<?>, CompletableFuture<State<?>>> running = new LinkedHashMap<>();
+			RuntimeException submitError = null;
+
+			for (int destination : destinations) {
+				try {
+					running.put(dependencyIndex.stateOf(destination),
+							CompletableFuture.supplyAsync(() -> startAsync(destination, run), executor).thenCompose(Function.identity()));
+				}
+				catch (RuntimeException rx) {
+					submitError = rx;
+					break;
+				}
+			}
+
+			RuntimeException error = submitError;
+			return CompletableFuture.allOf(running.values().toArray(new CompletableFuture<?>[0]))
+					.handle((ignore, ex) -> {
+						RuntimeException firstError = error;
+						for (Entry<StateID<?>, CompletableFuture<State<?>>> entry : running.entrySet()) {
+							try {
+								newStates.put(entry.getKey(), entry.getValue().join());
+							}
+							catch (CompletionException cx) {
+								if (firstError == null) {
+									firstError = unwrap(cx);
+								}
+							}
+						}
+
+						newStates.forEach((destination, state) -> notifyStateReached(initListener, destination, state));
+
+						if (firstError != null) {
+							throw firstError;
+						}
+						return null;
+					});
 		}
 
-		@SuppressWarnings("unchecked")
-		private static <D> State<D> stateOfMap(Map<StateID<?>, State<?>> stateMap, StateID<D> destination) {
-			return (State<D>) stateMap.get(destination);
+		private final class Run implements StateOfNamedType {
+
+			private final List<InitListener> initListener;
+			private final Deadline deadline;
+			private final ConcurrentMap<Integer, CompletableFuture<State<?>>> onDemand;
+			private final List<NamedTypeAndState<?>> startedOnDemand;
+			private volatile StateStore states;
+
+			private Run(StateStore states, List<InitListener> initListener, Deadline deadline) {
+				this(states, initListener, deadline, new ConcurrentHashMap<>(), new ArrayList<>());
+			}
+
+			private Run(StateStore states, List<InitListener> initListener, Deadline deadline,
+					ConcurrentMap<Integer, CompletableFuture<State<?>>> onDemand, List<NamedTypeAndState<?>> startedOnDemand) {
+				this.states = states;
+				this.initListener = initListener;
+				this.deadline = deadline;
+				this.onDemand = onDemand;
+				this.startedOnDemand = startedOnDemand;
+			}
+
+			private Run with(Deadline deadline) {
+				return new Run(states, initListener, deadline, onDemand, startedOnDemand);
+			}
+
+			@Override
+			public <D> D of(StateID<D> type) {
+				int ordinal = dependencyIndex.indexOf(type);
+				if (ordinal >= 0 && deferrable.get(ordinal) && !states.contains(ordinal)) {
+					return startOnDemand(type, ordinal).value();
+				}
+				return states.of(type);
+			}
+
+			@SuppressWarnings("unchecked")
+			private <D> State<D> startOnDemand(StateID<D> type, int ordinal) {
+				CompletableFuture<State<?>> started = new CompletableFuture<>();
+				CompletableFuture<State<?>> running = onDemand.putIfAbsent(ordinal, started);
+				if (running != null) {
+					return (State<D>) join(running);
+				}
+				try {
+					State<D> state = (State<D>) join(startAsync(ordinal, this));
+					synchronized (startedOnDemand) {
+						startedOnDemand.add(NamedTypeAndState.of(type, state));
+					}
+					notifyStateReached(initListener, type, state);
+					started.complete(state);
+					return state;
+				}
+				catch (RuntimeException rx) {
+					started.completeExceptionally(rx);
+					throw rx;
+				}
+			}
+
+			private void completed(List<Collection<NamedTypeAndState<?>>> initializedStates, Map<StateID<?>, State<?>> newStates) {
+				List<NamedTypeAndState<?>> lazyStates;
+				synchronized (startedOnDemand) {
+					lazyStates = new ArrayList<>(startedOnDemand);
+					startedOnDemand.clear();
+				}
+				if (!lazyStates.isEmpty()) {
+					Map<StateID<?>, State<?>> lazyStatesAsMap = new LinkedHashMap<>();
+					for (NamedTypeAndState<?> lazyState : lazyStates) {
+						initializedStates.add(Collections.singletonList(lazyState));
+						lazyStatesAsMap.put(lazyState.type(), lazyState.state());
+					}
+					states = states.with(lazyStatesAsMap);
+				}
+				if (!newStates.isEmpty()) {
+					initializedStates.add(asNamedTypeAndState(newStates));
+					states = states.with(newStates);
+				}
+			}
+		}
+
+		private void tearDown(List<Collection<NamedTypeAndState<?>>> initializedStates, List<InitListener> initListener, Optional<Duration> timeout) {
+			long closeStartedAt = System.nanoTime();
+			if (tearDownExecutor.isPresent()) {
+				InitLike.tearDown(dependencyIndex, initializedStates, initListener, tearDownExecutor.get(), timeout, closeStartedAt);
+			} else {
+				InitLike.tearDown(initializedStates, initListener, timeout, closeStartedAt);
+			}
+		}
+
+		private <D> Init<D> reInit(Init<D> running, Deadline deadline) {
+			return reInit(running, Collections.singleton(running.destination), deadline, initOf(running.destination, listenerOf(running)));
+		}
+
+		private Inits reInit(Inits running, Deadline deadline) {
+			return reInit(running, running.destinations, deadline, initsOf(running.destinations, listenerOf(running)));
+		}
+
+		private List<InitListener> listenerOf(AbstractInit running) {
+			return running.initListener;
+		}
+
+		private <H> H reInit(AbstractInit running, Set<StateID<?>> destinations, Deadline deadline,
+				BiFunction<List<Collection<NamedTypeAndState<?>>>, StateStore, H> handle) {
+			Context previous = running.context;
+			BitSet changed = changedSince(previous);
+
+			Set<StateID<?>> owned = new LinkedHashSet<>();
+			running.initializedStates.forEach(c -> c.forEach(typeAndState -> owned.add(typeAndState.type())));
+
+			Map<StateID<?>, State<?>> reused = new LinkedHashMap<>();
+			for (int i = 0; i < previous.dependencyIndex.size(); i++) {
+				if (running.states.contains(i)) {
+					StateID<?> state = previous.dependencyIndex.stateOf(i);
+					boolean affected = isAffected(changed, state);
+					Preconditions.checkArgument(!affected || owned.contains(state), "state %s is affected by a route change but was not started by this init",
+							Preconditions.lazy(() -> asMessage(state)));
+					if (!affected) {
+						reused.put(state, running.states.get(i));
+					}
+				}
+			}
+
+			List<Collection<NamedTypeAndState<?>>> outdated = new ArrayList<>();
+			List<Collection<NamedTypeAndState<?>>> kept = new ArrayList<>();
+			for (Collection<NamedTypeAndState<?>> stateSet : running.initializedStates) {
+				Map<Boolean, List<NamedTypeAndState<?>>> split = stateSet.stream()
+						.collect(Collectors.partitioningBy(typeAndState -> isAffected(changed, typeAndState.type())));
+				if (!split.get(true).isEmpty()) {
+					outdated.add(split.get(true));
+				}
+				if (!split.get(false).isEmpty()) {
+					kept.add(split.get(false));
+				}
+			}
+
+			running.initializedStates.clear();
+			running.initializedStates.addAll(kept);
+			previous.tearDown(outdated, running.initListener, Optional.empty());
+
+			StateStore reusedStates = emptyStates.with(reused);
+			Set<StateID<?>> pending = destinations.stream()
+					.filter(destination -> !reused.containsKey(destination))
+					.collect(Collectors.toCollection(LinkedHashSet::new));
+			if (pending.isEmpty()) {
+				running.initializedStates.clear();
+				return handle.apply(kept, reusedStates);
+			}
+
+			H ret = init(reusedStates, pending, running.initListener, deadline, (initializedStates, states) -> {
+				List<Collection<NamedTypeAndState<?>>> all = new ArrayList<>(initializedStates);
+				all.addAll(kept);
+				return handle.apply(all, states);
+			});
+			running.initializedStates.clear();
+			return ret;
+		}
+
+		private BitSet changedSince(Context previous) {
+			BitSet changed = new BitSet(dependencyIndex.size());
+			for (int i = 0; i < dependencyIndex.size(); i++) {
+				int before = previous.dependencyIndex.indexOf(dependencyIndex.stateOf(i));
+				if (before < 0
+						|| !Objects.equals(routes[i], previous.routes[before])
+						|| replaced.get(i)
+						|| !options[i].equals(previous.options[before])) {
+					changed.set(i);
+				}
+			}
+			for (int i = 0; i < dependencyIndex.size(); i++) {
+				if (!changed.get(i)) {
+					for (StateID<?> dependency : dependencyIndex.dependenciesOf(dependencyIndex.stateOf(i))) {
+						if (changed.get(dependencyIndex.ordinalOf(dependency))) {
+							changed.set(i);
+							break;
+						}
+					}
+				}
+			}
+			return changed;
+		}
+
+		private boolean isAffected(BitSet changed, StateID<?> state) {
+			int ordinal = dependencyIndex.indexOf(state);
+			return ordinal < 0 || changed.get(ordinal);
+		}
+
+		private void checkDestinations(StateStore currentStates, Set<StateID<?>> destinations) {
+			Preconditions.checkArgument(!destinations.isEmpty(), "no destination");
+			destinations.forEach(destination -> checkDestination(currentStates, destination));
+		}
+
+		private void checkDestination(StateStore currentStates, StateID<?> destination) {
+			Preconditions.checkArgument(!currentStates.contains(destination), "state %s already initialized", asMessage(destination));
+			Preconditions.checkArgument(dependencyIndex.contains(destination), "state %s is not part of this init process", asMessage(destination));
+		}
+
+		private int[] filterNotIn(StateStore states, int[] level) {
+			return Arrays.stream(level)
+					.filter(ordinal -> !states.contains(ordinal))
+					.toArray();
+		}
+
+		private List<StateID<?>> statesOf(int[] ordinals) {
+			return Arrays.stream(ordinals)
+					.mapToObj(dependencyIndex::stateOf)
+					.collect(Collectors.toList());
 		}
 	}
 
-	public static class Init<D> implements AutoCloseable {
+	public static abstract class AbstractInit implements AutoCloseable {
 
-		private final StateID<D> destination;
-		private final State<D> state;
-		private final List<Collection<NamedTypeAndState<?>>> initializedStates;
-		private final Map<StateID<?>, State<?>> stateMap;
 		private final Context context;
+		private final List<Collection<NamedTypeAndState<?>>> initializedStates;
+		private final StateStore states;
 		private final List<InitListener> initListener;
 
-		private Init(Context context, List<Collection<NamedTypeAndState<?>>> initializedStates, Map<StateID<?>, State<?>> stateMap, StateID<D> destination,
-				State<D> state, List<InitListener> initListener) {
+		private AbstractInit(Context context, List<Collection<NamedTypeAndState<?>>> initializedStates, StateStore states,
+				List<InitListener> initListener) {
 			this.context = context;
-			this.destination = destination;
-			this.state = state;
 			this.initListener = Preconditions.checkNotNull(initListener,"initListener is null");
-			this.stateMap = new LinkedHashMap<>(stateMap);
+			this.states = states;
 			this.initializedStates = new ArrayList<>(initializedStates);
 		}
 
 		public <T> Init<T> init(StateID<T> destination) {
-			return context.init(stateMap, destination, initListener);
+			return init(destination, Deadline.none());
+		}
+
+		public <T> Init<T> init(StateID<T> destination, Deadline deadline) {
+			return context.init(states, destination, initListener, Preconditions.checkNotNull(deadline, "deadline is null"));
+		}
+
+		public Inits init(Set<StateID<?>> destinations) {
+			return init(destinations, Deadline.none());
+		}
+
+		public Inits init(Set<StateID<?>> destinations, Deadline deadline) {
+			return context.init(states, destinations, initListener, Preconditions.checkNotNull(deadline, "deadline is null"));
+		}
+
+		public <T> CompletionStage<Init<T>> initAsync(StateID<T> destination, Executor executor) {
+			return initAsync(destination, executor, Deadline.none());
+		}
+
+		public <T> CompletionStage<Init<T>> initAsync(StateID<T> destination, Executor executor, Deadline deadline) {
+			return context.initAsync(states, destination, initListener, Preconditions.checkNotNull(executor, "executor is null"),
+					Preconditions.checkNotNull(deadline, "deadline is null"));
 		}
 
 		@Override
 		public void close() {
-			tearDown(initializedStates, initListener);
+			context.tearDown(initializedStates, initListener, Optional.empty());
+		}
+
+		public void close(Duration timeout) {
+			context.tearDown(initializedStates, initListener, Optional.of(timeout));
+		}
+
+		public CompletionStage<Void> closeAsync() {
+			return closeAsync(context.executor.orElseGet(TransitionExecutors::threadPerTransition));
+		}
+
+		public CompletionStage<Void> closeAsync(Executor executor) {
+			return CompletableFuture.runAsync(this::close, Preconditions.checkNotNull(executor, "executor is null"));
+		}
+
+		protected <T> State<T> stateOf(StateID<T> state) {
+			Preconditions.checkArgument(states.contains(state), "state %s not reached", asMessage(state));
+			return states.get(state);
+		}
+	}
+
+	public static class Init<D> extends AbstractInit {
+
+		private final StateID<D> destination;
+		private final State<D> state;
+
+		private Init(Context context, List<Collection<NamedTypeAndState<?>>> initializedStates, StateStore states, StateID<D> destination,
+				State<D> state, List<InitListener> initListener) {
+			super(context, initializedStates, states, initListener);
+			this.destination = destination;
+			this.state = state;
 		}
 
 		public D current() {
@@ -218,14 +798,35 @@ public class InitLike {
 		}
 	}
 
-	private static void tearDown(List<Collection<NamedTypeAndState<?>>> initializedStates, List<InitListener> initListener) {
+	public static class Inits extends AbstractInit {
+
+		private final Set<StateID<?>> destinations;
+
+		private Inits(Context context, List<Collection<NamedTypeAndState<?>>> initializedStates, StateStore states,
+				Set<StateID<?>> destinations, List<InitListener> initListener) {
+			super(context, initializedStates, states, initListener);
+			this.destinations = destinations;
+		}
+
+		public Set<StateID<?>> destinations() {
+			return destinations;
+		}
+
+		public <T> T current(StateID<T> destination) {
+			Preconditions.checkArgument(destinations.contains(destination), "state %s is not a destination", asMessage(destination));
+			return stateOf(destination).value();
+		}
+	}
+
+	private static void tearDown(List<Collection<NamedTypeAndState<?>>> initializedStates, List<InitListener> initListener, Optional<Duration> timeout,
+			long closeStartedAt) {
 		List<RuntimeException> exceptions = new ArrayList<>();
 
 		initializedStates.forEach(stateSet -> {
-			stateSet.forEach(typeAndState -> {
+			lastReferencesOf(stateSet).forEach(typeAndState -> {
 				notifyListener(initListener, typeAndState);
 				try {
-					tearDown(typeAndState.state());
+					tearDown(initListener, typeAndState, timeout, closeStartedAt);
 				}
 				catch (RuntimeException rx) {
 					exceptions.add(rx);
@@ -233,6 +834,71 @@ public class InitLike {
 			});
 		});
 
+		throwIfAny(exceptions);
+	}
+
+	private static void tearDown(DependencyIndex dependencyIndex, List<Collection<NamedTypeAndState<?>>> initializedStates,
+			List<InitListener> initListener, Executor executor, Optional<Duration> timeout, long closeStartedAt) {
+		List<RuntimeException> exceptions = new ArrayList<>();
+
+		for (List<NamedTypeAndState<?>> wave : tearDownWavesOf(dependencyIndex, initializedStates)) {
+			wave.forEach(typeAndState -> notifyListener(initListener, typeAndState));
+
+			List<CompletableFuture<Void>> running = new ArrayList<>();
+			for (NamedTypeAndState<?> typeAndState : wave) {
+				try {
+					running.add(CompletableFuture.runAsync(() -> tearDown(initListener, typeAndState, timeout, closeStartedAt), executor));
+				}
+				catch (RuntimeException rx) {
+					exceptions.add(rx);
+				}
+			}
+			for (CompletableFuture<Void> tearDown : running) {
+				try {
+					tearDown.join();
+				}
+				catch (CompletionException cx) {
+					exceptions.add(unwrap(cx));
+				}
+			}
+		}
+
+		throwIfAny(exceptions);
+	}
+
+	private static List<List<NamedTypeAndState<?>>> tearDownWavesOf(DependencyIndex dependencyIndex,
+			List<Collection<NamedTypeAndState<?>>> initializedStates) {
+		List<NamedTypeAndState<?>> states = initializedStates.stream()
+				.map(InitLike::lastReferencesOf)
+				.flatMap(Collection::stream)
+				.collect(Collectors.toList());
+
+		List<List<NamedTypeAndState<?>>> waves = new ArrayList<>();
+		int[] waveOf = new int[states.size()];
+		for (int i = 0; i < states.size(); i++) {
+			StateID<?> current = states.get(i).type();
+			int wave = 0;
+			for (int dependent = 0; dependent < i; dependent++) {
+				if (dependencyIndex.isDependencyOf(current, states.get(dependent).type())) {
+					wave = Math.max(wave, waveOf[dependent] + 1);
+				}
+			}
+			waveOf[i] = wave;
+			if (waves.size() <= wave) {
+				waves.add(new ArrayList<>());
+			}
+			waves.get(wave).add(states.get(i));
+		}
+		return waves;
+	}
+
+	private static List<NamedTypeAndState<?>> lastReferencesOf(Collection<NamedTypeAndState<?>> states) {
+		List<NamedTypeAndState<?>> ret = new ArrayList<>();
+		states.forEach(typeAndState -> SharedStates.lastReferenceOf(typeAndState).ifPresent(ret::add));
+		return ret;
+	}
+
+	private static void throwIfAny(List<RuntimeException> exceptions) {
 		if (!exceptions.isEmpty()) {
 			if (exceptions.size() == 1) {
 				throw new TearDownException("tearDown errors", exceptions.get(0));
@@ -257,10 +923,41 @@ public class InitLike {
 		});
 	}
 
-	private static <T> Set<T> filterNotIn(Set<T> existing, Set<T> toFilter) {
-		return new LinkedHashSet<>(toFilter.stream()
-				.filter(t -> !existing.contains(t))
-				.collect(Collectors.toList()));
+	private static void tearDown(List<InitListener> initListener, NamedTypeAndState<?> typeAndState, Optional<Duration> timeout,
+			long closeStartedAt) {
+		StateID<?> state = typeAndState.type();
+		long startedAt = System.nanoTime();
+		initListener.forEach(listener -> listener.onTearDownStarted(state, startedAt));
+		Span span = FlightRecorderEvents.tearDown(state);
+		try {
+			tearDown(typeAndState.state(), timeout, closeStartedAt);
+			span.succeeded();
+		}
+		catch (RuntimeException rx) {
+			span.failed(rx);
+			Duration duration = Duration.ofNanos(System.nanoTime() - startedAt);
+			initListener.forEach(listener -> listener.onTearDownFailed(state, startedAt, duration, rx));
+			throw rx;
+		}
+		Duration duration = Duration.ofNanos(System.nanoTime() - startedAt);
+		initListener.forEach(listener -> listener.onTearDownFinished(state, startedAt, duration));
+	}
+
+	private static <D> void tearDown(State<D> state, Optional<Duration> timeout, long closeStartedAt) {
+		Optional<Duration> remaining = timeout.map(t -> t.minusNanos(System.nanoTime() - closeStartedAt))
+				.map(left -> left.isNegative() ? Duration.ZERO : left);
+		try {
+			Deadline.none().call(remaining, () -> {
+				tearDown(state);
+				return null;
+			}, late -> {});
+		}
+		catch (DeadlineExceededException dx) {
+			if (!timeout.isPresent()) {
+				throw dx;
+			}
+			throw new DeadlineExceededException("timeout after " + timeout.get(), dx.getCause());
+		}
 	}
 
 	private static <D> void tearDown(State<D> state) {
@@ -268,15 +965,61 @@ public class InitLike {
 	}
 
 	public static InitLike with(InitRoutes<SingleDestination<?>> routes) {
+		return with(routes, Collections.emptyList());
+	}
+
+	public static InitLike with(InitRoutes<SingleDestination<?>> routes, Collection<? extends TransitionResolver> additionalResolvers) {
 		UnmodifiableDirectedGraph<StateID<?>, RoutesAsGraph.RouteAndVertex> routesAsGraph = RoutesAsGraph.asGraph(routes.all());
-		List<? extends Loop<StateID<?>, RoutesAsGraph.RouteAndVertex>> loops = Graphs.loopsOf(routesAsGraph);
+		Optional<DependencyIndex> acyclicIndex = DependencyIndex.ofAcyclic(routesAsGraph);
 
-		Preconditions.checkArgument(loops.isEmpty(), "loops are not supported: %s", Preconditions.lazy(() -> asMessage(loops)));
+		Preconditions.checkArgument(acyclicIndex.isPresent(), "loops are not supported: %s",
+				Preconditions.lazy(() -> asMessage(Graphs.loopsOf(routesAsGraph))));
 
 		Map<StateID<?>, List<SingleDestination<?>>> routeByDestination = routes.all().stream()
 				.collect(Collectors.groupingBy(r -> r.destination()));
 
-		return new InitLike(routes, routesAsGraph, routeByDestination);
+		List<TransitionResolver> transitionResolvers = new ArrayList<>(additionalResolvers);
+		transitionResolvers.addAll(TransitionResolver.defaultResolvers());
+
+		DependencyIndex dependencyIndex = acyclicIndex.get();
+
+		Resolver[] resolvers = new Resolver[dependencyIndex.size()];
+		AsyncResolver[] asyncResolvers = new AsyncResolver[dependencyIndex.size()];
+		RouteOptions[] options = new RouteOptions[dependencyIndex.size()];
+		SingleDestination<?>[] routeOfState = new SingleDestination<?>[dependencyIndex.size()];
+		BitSet replaced = new BitSet(dependencyIndex.size());
+		for (int i = 0; i < resolvers.length; i++) {
+			StateID<?> state = dependencyIndex.stateOf(i);
+			options[i] = optionsOf(routes, routeByDestination, state);
+			asyncResolvers[i] = asyncResolverOf(routes, routeByDestination, state)
+					.<AsyncResolver> map(resolver -> resolver::apply)
+					.orElse(null);
+			resolvers[i] = asyncResolvers[i] != null
+					? null
+					: resolverOf(transitionResolvers, routes, routeByDestination, state)::apply;
+			List<SingleDestination<?>> routeForThisState = routeByDestination.get(state);
+			if (routeForThisState != null) {
+				if (routeForThisState.size() == 1) {
+					routeOfState[i] = routeForThisState.get(0);
+				}
+				if (routeForThisState.stream().anyMatch(routes::isReplaced)) {
+					replaced.set(i);
+				}
+			}
+		}
+
+		for (int i = 0; i < options.length; i++) {
+			if (options[i].shared()) {
+				StateID<?> state = dependencyIndex.stateOf(i);
+				for (StateID<?> dependency : dependencyIndex.dependenciesOf(state)) {
+					Preconditions.checkArgument(options[dependencyIndex.ordinalOf(dependency)].shared(), "shared state %s depends on not shared state %s",
+							Preconditions.lazy(() -> asMessage(state)), Preconditions.lazy(() -> asMessage(dependency)));
+				}
+			}
+		}
+
+		return new InitLike(new Context(dependencyIndex, routeOfState, replaced, resolvers, asyncResolvers, options, new ConcurrentHashMap<>(),
+				new SharedStates(dependencyIndex.size()), Optional.empty(), Optional.empty()));
 	}
 
 	private static String asMessage(List<? extends Loop<StateID<?>, ?>> loops) {
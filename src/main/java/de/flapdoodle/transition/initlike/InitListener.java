@@ -30,7 +30,7 @@ import org.immutables.value.Value.Parameter;
 
 import de.flapdoodle.transition.StateID;
 
-public interface InitListener extends InitOnStateReached, InitOnStateTearDown {
+public interface InitListener extends InitOnStateReached, InitOnStateTearDown, InitOnTransition {
 	
 	public static TypedListener.Builder typedBuilder() {
 		return ImmutableTypedListener.builder();
@@ -16,25 +16,26 @@
  */
 package de.flapdoodle.transition.initlike;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.time.Duration;
 
-import de.flapdoodle.checks.Preconditions;
 import de.flapdoodle.transition.StateID;
-import de.flapdoodle.transition.initlike.resolver.StateOfNamedType;
 
-public class MapBasedStateOfNamedType implements StateOfNamedType {
+public interface InitOnTransition {
+	default void onTransitionStarted(StateID<?> state, long startedAt) {
+	}
 
-	private final Map<StateID<?>, State<?>> stateMap;
+	default void onTransitionFinished(StateID<?> state, long startedAt, Duration duration) {
+	}
 
-	public MapBasedStateOfNamedType(Map<StateID<?>, State<?>> stateMap) {
-		this.stateMap = new LinkedHashMap<>(stateMap);
+	default void onTransitionFailed(StateID<?> state, long startedAt, Duration duration, RuntimeException error) {
 	}
 
-	@Override
-	@SuppressWarnings("unchecked")
-	public <D> D of(StateID<D> type) {
-		return ((State<D>) Preconditions.checkNotNull(stateMap.get(type), "could find state for %s", type)).value();
+	default void onTearDownStarted(StateID<?> state, long startedAt) {
 	}
 
-}
\ No newline at end of file
+	default void onTearDownFinished(StateID<?> state, long startedAt, Duration duration) {
+	}
+
+	default void onTearDownFailed(StateID<?> state, long startedAt, Duration duration, RuntimeException error) {
+	}
+}
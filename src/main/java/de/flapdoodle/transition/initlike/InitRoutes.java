@@ -18,10 +18,18 @@ package de.flapdoodle.transition.initlike;
 
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 
+import de.flapdoodle.checks.Preconditions;
+import de.flapdoodle.transition.initlike.transitions.AsyncBridgeTransition;
+import de.flapdoodle.transition.initlike.transitions.AsyncMerge3Transition;
+import de.flapdoodle.transition.initlike.transitions.AsyncMergeTransition;
+import de.flapdoodle.transition.initlike.transitions.AsyncStartTransition;
 import de.flapdoodle.transition.initlike.transitions.BridgeTransition;
+import de.flapdoodle.transition.initlike.transitions.DeferredBridgeTransition;
+import de.flapdoodle.transition.initlike.transitions.DeferredMergeTransition;
 import de.flapdoodle.transition.initlike.transitions.Merge3Transition;
 import de.flapdoodle.transition.initlike.transitions.MergeTransition;
 import de.flapdoodle.transition.initlike.transitions.StartTransition;
@@ -36,9 +44,13 @@ import de.flapdoodle.transition.routes.Start;
 public class InitRoutes<R extends SingleDestination<?>> {
 
 	private final Map<R, Transition<?>> routeMap;
+	private final Map<R, RouteOptions> optionsMap;
+	private final Set<R> replaced;
 
-	private InitRoutes(Map<R, Transition<?>> routeMap) {
+	private InitRoutes(Map<R, Transition<?>> routeMap, Map<R, RouteOptions> optionsMap, Set<R> replaced) {
 		this.routeMap = new LinkedHashMap<>(routeMap);
+		this.optionsMap = new LinkedHashMap<>(optionsMap);
+		this.replaced = new LinkedHashSet<>(replaced);
 	}
 
 	public Set<R> all() {
@@ -50,6 +62,15 @@ public class InitRoutes<R extends SingleDestination<?>> {
 		return (Transition<D>) routeMap.get(route);
 	}
 
+	public RouteOptions optionsOf(SingleDestination<?> route) {
+		RouteOptions options = optionsMap.get(route);
+		return options != null ? options : RouteOptions.defaults();
+	}
+
+	public boolean isReplaced(SingleDestination<?> route) {
+		return replaced.contains(route);
+	}
+
 	static RawBuilder rawBuilder() {
 		return new RawBuilder();
 	}
@@ -60,6 +81,8 @@ public class InitRoutes<R extends SingleDestination<?>> {
 
 	public static class RawBuilder {
 		Map<SingleDestination<?>, Route.Transition<?>> routeMap = new LinkedHashMap<>();
+		Map<SingleDestination<?>, RouteOptions> optionsMap = new LinkedHashMap<>();
+		Set<SingleDestination<?>> replaced = new LinkedHashSet<>();
 
 		private RawBuilder() {
 
@@ -82,6 +105,31 @@ public class InitRoutes<R extends SingleDestination<?>> {
 			return addRoute(route, transition);
 		}
 
+		public <D> RawBuilder addAsync(Start<D> route, AsyncStartTransition<D> transition) {
+			return addRoute(route, transition);
+		}
+
+		public <S, D> RawBuilder addAsync(Bridge<S, D> route, AsyncBridgeTransition<S, D> transition) {
+			return addRoute(route, transition);
+		}
+
+		public <L, R, D> RawBuilder addAsync(MergingJunction<L, R, D> route, AsyncMergeTransition<L, R, D> transition) {
+			return addRoute(route, transition);
+		}
+
+		public <L, M, R, D> RawBuilder addAsync(Merge3Junction<L, M, R, D> route,
+				AsyncMerge3Transition<L, M, R, D> transition) {
+			return addRoute(route, transition);
+		}
+
+		public <S, D> RawBuilder addDeferred(Bridge<S, D> route, DeferredBridgeTransition<S, D> transition) {
+			return addRoute(route, transition);
+		}
+
+		public <L, R, D> RawBuilder addDeferred(MergingJunction<L, R, D> route, DeferredMergeTransition<L, R, D> transition) {
+			return addRoute(route, transition);
+		}
+
 		public <D> RawBuilder replace(Start<D> route, StartTransition<D> transition) {
 			return replaceRoute(route, transition);
 		}
@@ -99,6 +147,31 @@ public class InitRoutes<R extends SingleDestination<?>> {
 			return replaceRoute(route, transition);
 		}
 
+		public <D> RawBuilder replaceAsync(Start<D> route, AsyncStartTransition<D> transition) {
+			return replaceRoute(route, transition);
+		}
+
+		public <S, D> RawBuilder replaceAsync(Bridge<S, D> route, AsyncBridgeTransition<S, D> transition) {
+			return replaceRoute(route, transition);
+		}
+
+		public <L, R, D> RawBuilder replaceAsync(MergingJunction<L, R, D> route, AsyncMergeTransition<L, R, D> transition) {
+			return replaceRoute(route, transition);
+		}
+
+		public <L, M, R, D> RawBuilder replaceAsync(Merge3Junction<L, M, R, D> route,
+				AsyncMerge3Transition<L, M, R, D> transition) {
+			return replaceRoute(route, transition);
+		}
+
+		public <S, D> RawBuilder replaceDeferred(Bridge<S, D> route, DeferredBridgeTransition<S, D> transition) {
+			return replaceRoute(route, transition);
+		}
+
+		public <L, R, D> RawBuilder replaceDeferred(MergingJunction<L, R, D> route, DeferredMergeTransition<L, R, D> transition) {
+			return replaceRoute(route, transition);
+		}
+
 		private <D> RawBuilder addRoute(SingleDestination<D> route, Route.Transition<D> transition) {
 			Transition<?> old = routeMap.put(route, transition);
 			if (old != null) {
@@ -109,18 +182,29 @@ public class InitRoutes<R extends SingleDestination<?>> {
 
 		private <D> RawBuilder replaceRoute(SingleDestination<D> route, Route.Transition<D> transition) {
 			routeMap.put(route, transition);
+			optionsMap.remove(route);
+			replaced.add(route);
+			return this;
+		}
+
+		public RawBuilder options(SingleDestination<?> route, RouteOptions options) {
+			Preconditions.checkArgument(routeMap.containsKey(route), "route %s not set", route);
+			optionsMap.put(route, Preconditions.checkNotNull(options, "options is null"));
 			return this;
 		}
 
 		public RawBuilder addAll(InitRoutes<SingleDestination<?>> routes) {
 			routes.all().forEach(route -> {
 				addRoute((SingleDestination) route, routes.transitionOf(route));
+				if (routes.optionsMap.containsKey(route)) {
+					optionsMap.put(route, routes.optionsMap.get(route));
+				}
 			});
 			return this;
 		}
 
 		public InitRoutes<SingleDestination<?>> build() {
-			return new InitRoutes<>(routeMap);
+			return new InitRoutes<>(routeMap, optionsMap, replaced);
 		}
 	}
 }
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.initlike;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.flapdoodle.checks.Preconditions;
+
+public final class LatencyHistogram {
+
+	private static final int BUCKETS = 64;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong max = new AtomicLong(0);
+
+	public void record(Duration duration) {
+		record(duration.toNanos());
+	}
+
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		buckets.incrementAndGet(bucketOf(value));
+		count.increment();
+		sum.add(value);
+		min.accumulateAndGet(value, Math::min);
+		max.accumulateAndGet(value, Math::max);
+	}
+
+	public long count() {
+		return count.sum();
+	}
+
+	public Duration min() {
+		return count() == 0 ? Duration.ZERO : Duration.ofNanos(min.get());
+	}
+
+	public Duration max() {
+		return Duration.ofNanos(max.get());
+	}
+
+	public Duration mean() {
+		long count = count();
+		return count == 0 ? Duration.ZERO : Duration.ofNanos(sum.sum() / count);
+	}
+
+	public Duration total() {
+		return Duration.ofNanos(sum.sum());
+	}
+
+	public Duration percentile(double percentile) {
+		Preconditions.checkArgument(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100: %s", percentile);
+		long count = count();
+		if (count == 0) {
+			return Duration.ZERO;
+		}
+		long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += buckets.get(i);
+			if (seen >= rank) {
+				return Duration.ofNanos(Math.max(min.get(), Math.min(max.get(), upperBoundOf(i))));
+			}
+		}
+		return max();
+	}
+
+	@Override
+	public String toString() {
+		return "LatencyHistogram{count=" + count() + ", min=" + min() + ", mean=" + mean() + ", p50=" + percentile(50)
+				+ ", p99=" + percentile(99) + ", max=" + max() + "}";
+	}
+
+	private static int bucketOf(long nanos) {
+		return nanos == 0 ? 0 : BUCKETS - Long.numberOfLeadingZeros(nanos) - 1;
+	}
+
+	private static long upperBoundOf(int bucket) {
+		return bucket >= BUCKETS - 2 ? Long.MAX_VALUE : (1L << (bucket + 1)) - 1;
+	}
+}
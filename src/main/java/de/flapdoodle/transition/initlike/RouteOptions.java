@@ -0,0 +1,45 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.initlike;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.immutables.value.Value;
+
+@Value.Immutable
+public interface RouteOptions {
+	Optional<Duration> timeout();
+
+	@Value.Default
+	default boolean shared() {
+		return false;
+	}
+
+	@Value.Default
+	default boolean lazy() {
+		return false;
+	}
+
+	public static RouteOptions defaults() {
+		return builder().build();
+	}
+
+	public static ImmutableRouteOptions.Builder builder() {
+		return ImmutableRouteOptions.builder();
+	}
+}
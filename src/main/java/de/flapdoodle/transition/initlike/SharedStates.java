@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.initlike;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+final class SharedStates {
+
+	private final Entry[] entries;
+
+	SharedStates(int size) {
+		this.entries = new Entry[size];
+	}
+
+	public CompletableFuture<State<?>> acquire(int ordinal, Deadline waiter, Function<Deadline, ? extends CompletionStage<State<?>>> start) {
+		Entry entry;
+		boolean startHere = false;
+		synchronized (entries) {
+			entry = entries[ordinal];
+			if (entry == null) {
+				entry = new Entry();
+				entries[ordinal] = entry;
+				startHere = true;
+			}
+			entry.references++;
+		}
+
+		if (startHere) {
+			Entry started = entry;
+			try {
+				start.apply(started.deadline).whenComplete((state, ex) -> {
+					if (ex != null) {
+						failed(ordinal, started, ex);
+					} else {
+						started.state.complete(state);
+					}
+				});
+			}
+			catch (RuntimeException rx) {
+				failed(ordinal, started, rx);
+			}
+		}
+
+		Entry acquired = entry;
+		CompletableFuture<State<?>> waiting;
+		try {
+			waiting = waiter.callAsync(Optional.empty(), () -> acquired.state, state -> {});
+		}
+		catch (RuntimeException rx) {
+			waiting = new CompletableFuture<>();
+			waiting.completeExceptionally(rx);
+		}
+		return waiting.handle((state, ex) -> {
+			if (ex != null) {
+				abandon(ordinal, acquired);
+				throw ex instanceof CompletionException ? (CompletionException) ex : new CompletionException(ex);
+			}
+			return reference(ordinal, acquired, state);
+		});
+	}
+
+	public int references(int ordinal) {
+		synchronized (entries) {
+			return entries[ordinal] != null ? entries[ordinal].references : 0;
+		}
+	}
+
+	private void failed(int ordinal, Entry entry, Throwable cause) {
+		synchronized (entries) {
+			if (entries[ordinal] == entry) {
+				entries[ordinal] = null;
+			}
+		}
+		entry.state.completeExceptionally(cause);
+	}
+
+	private void abandon(int ordinal, Entry entry) {
+		if (isLast(ordinal, entry)) {
+			entry.deadline.cancel();
+			entry.state.thenAccept(SharedStates::tearDown);
+		}
+	}
+
+	private <T> State<T> reference(int ordinal, Entry entry, State<T> state) {
+		return State.builder(state.value())
+				.onTearDown(new Reference<>(ordinal, entry, state))
+				.build();
+	}
+
+	private boolean isLast(int ordinal, Entry entry) {
+		synchronized (entries) {
+			if (--entry.references > 0) {
+				return false;
+			}
+			if (entries[ordinal] == entry) {
+				entries[ordinal] = null;
+			}
+			return true;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> Optional<NamedTypeAndState<T>> lastReferenceOf(NamedTypeAndState<T> typeAndState) {
+		Optional<TearDown<T>> tearDown = typeAndState.state().onTearDown();
+		if (tearDown.isPresent() && tearDown.get() instanceof Reference) {
+			// a reference is only created as tearDown of a State<T> with the same T
+			return ((Reference<T>) tearDown.get()).release()
+					.map(state -> NamedTypeAndState.of(typeAndState.type(), state));
+		}
+		return Optional.of(typeAndState);
+	}
+
+	private static <T> void tearDown(State<T> state) {
+		state.onTearDown().ifPresent(t -> t.onTearDown(state.value()));
+	}
+
+	private final class Reference<T> implements TearDown<T> {
+		private final int ordinal;
+		private final Entry entry;
+		private final State<T> state;
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private Reference(int ordinal, Entry entry, State<T> state) {
+			this.ordinal = ordinal;
+			this.entry = entry;
+			this.state = state;
+		}
+
+		@Override
+		public void onTearDown(T current) {
+			release().ifPresent(SharedStates::tearDown);
+		}
+
+		private Optional<State<T>> release() {
+			if (released.compareAndSet(false, true) && isLast(ordinal, entry)) {
+				return Optional.of(state);
+			}
+			return Optional.empty();
+		}
+	}
+
+	private static final class Entry {
+		private final CompletableFuture<State<?>> state = new CompletableFuture<>();
+		private final Deadline deadline = Deadline.none();
+		private int references = 0;
+	}
+}
@@ -0,0 +1,270 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.initlike;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import de.flapdoodle.checks.Preconditions;
+import de.flapdoodle.transition.StateID;
+import de.flapdoodle.transition.initlike.transitions.StartTransition;
+
+public final class StartCache {
+
+	private static final String ENTRY_SUFFIX = ".ser";
+	private static final String EVICTION_LOCK = "eviction.lock";
+	private static final ConcurrentMap<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+	private final Path directory;
+	private final long maxSize;
+
+	private StartCache(Path directory, long maxSize) {
+		this.directory = directory;
+		this.maxSize = maxSize;
+	}
+
+	public Path directory() {
+		return directory;
+	}
+
+	public long maxSize() {
+		return maxSize;
+	}
+
+	public <T> StartTransition<T> cached(StateID<T> type, String fingerprint, StartTransition<T> transition) {
+		String key = keyOf(type, fingerprint);
+		return () -> get(key, type, transition);
+	}
+
+	public void clear() {
+		for (Path entry : entries()) {
+			delete(entry);
+		}
+	}
+
+	private <T> State<T> get(String key, StateID<T> type, StartTransition<T> transition) {
+		Path entry = directory.resolve(key + ENTRY_SUFFIX);
+		Optional<T> cached = read(entry, type);
+		if (cached.isPresent()) {
+			touch(entry);
+			return State.of(cached.get());
+		}
+
+		State<T> state = transition.get();
+		try {
+			Preconditions.checkArgument(!state.onTearDown().isPresent(), "cached start of %s must not declare a teardown", type);
+			Preconditions.checkArgument(state.value() instanceof Serializable, "value of %s is not serializable: %s", type, state.value());
+		}
+		catch (IllegalArgumentException iax) {
+			tearDown(state, iax);
+			throw iax;
+		}
+
+		try {
+			write(key, entry, (Serializable) state.value());
+			evict(entry);
+		}
+		catch (IOException iox) {
+			throw new UncheckedIOException("could not write cache entry for " + type, iox);
+		}
+		return state;
+	}
+
+	private static <T> void tearDown(State<T> state, Exception cause) {
+		try {
+			state.onTearDown().ifPresent(tearDown -> tearDown.onTearDown(state.value()));
+		}
+		catch (RuntimeException rx) {
+			cause.addSuppressed(rx);
+		}
+	}
+
+	private static <T> Optional<T> read(Path entry, StateID<T> type) {
+		try (InputStream in = Files.newInputStream(entry); ObjectInputStream objects = new ObjectInputStream(in)) {
+			Object value = objects.readObject();
+			if (type.type().isInstance(value)) {
+				return Optional.of(type.type().cast(value));
+			}
+		}
+		catch (NoSuchFileException nfx) {
+			return Optional.empty();
+		}
+		catch (IOException | ClassNotFoundException ex) {
+			// unreadable entry, replace it
+		}
+		delete(entry);
+		return Optional.empty();
+	}
+
+	private static void touch(Path entry) {
+		try {
+			Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+		}
+		catch (IOException iox) {
+			// evicted in between, next miss will write it again
+		}
+	}
+
+	private void write(String key, Path entry, Serializable value) throws IOException {
+		Path temp = Files.createTempFile(directory, key, ".tmp");
+		try {
+			try (OutputStream out = Files.newOutputStream(temp); ObjectOutputStream objects = new ObjectOutputStream(out)) {
+				objects.writeObject(value);
+			}
+			try {
+				Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException ax) {
+				Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private void evict(Path keep) throws IOException {
+		if (sizeOf(entries()) <= maxSize) {
+			return;
+		}
+
+		Path lockPath = directory.resolve(EVICTION_LOCK);
+		synchronized (LOCKS.computeIfAbsent(lockPath.toAbsolutePath(), k -> new Object())) {
+			try (FileChannel lockFile = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+				FileLock lock = lockFile.lock();
+				try {
+					List<Path> entries = entries();
+					long size = sizeOf(entries);
+					entries.sort(Comparator.comparingLong(StartCache::lastModifiedOf));
+					for (Path entry : entries) {
+						if (size <= maxSize) {
+							break;
+						}
+						if (!entry.equals(keep)) {
+							size -= sizeOf(entry);
+							delete(entry);
+						}
+					}
+				}
+				finally {
+					lock.release();
+				}
+			}
+		}
+	}
+
+	private List<Path> entries() {
+		List<Path> ret = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+			stream.forEach(ret::add);
+		}
+		catch (IOException iox) {
+			throw new UncheckedIOException("could not list " + directory, iox);
+		}
+		return ret;
+	}
+
+	private static long sizeOf(List<Path> entries) {
+		long size = 0;
+		for (Path entry : entries) {
+			size += sizeOf(entry);
+		}
+		return size;
+	}
+
+	private static long sizeOf(Path entry) {
+		try {
+			return Files.size(entry);
+		}
+		catch (IOException iox) {
+			return 0;
+		}
+	}
+
+	private static long lastModifiedOf(Path entry) {
+		try {
+			return Files.getLastModifiedTime(entry).toMillis();
+		}
+		catch (IOException iox) {
+			return 0;
+		}
+	}
+
+	private static void delete(Path entry) {
+		try {
+			Files.deleteIfExists(entry);
+		}
+		catch (IOException iox) {
+			// another process may still hold this entry, next eviction will retry
+		}
+	}
+
+	private static String keyOf(StateID<?> type, String fingerprint) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] hash = digest.digest((type.name() + ":" + type.type().getName() + ":" + fingerprint).getBytes(StandardCharsets.UTF_8));
+			StringBuilder sb = new StringBuilder();
+			for (byte b : hash) {
+				sb.append(String.format("%02x", b));
+			}
+			return sb.toString();
+		}
+		catch (NoSuchAlgorithmException nsax) {
+			throw new IllegalStateException(nsax);
+		}
+	}
+
+	public static StartCache of(Path directory) {
+		return of(directory, Long.MAX_VALUE);
+	}
+
+	public static StartCache of(Path directory, long maxSize) {
+		Preconditions.checkNotNull(directory, "directory is null");
+		Preconditions.checkArgument(maxSize > 0, "maxSize must be greater than 0: %s", maxSize);
+		try {
+			Files.createDirectories(directory);
+		}
+		catch (IOException iox) {
+			throw new UncheckedIOException("could not create " + directory, iox);
+		}
+		return new StartCache(directory, maxSize);
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.initlike;
+
+import java.util.Map;
+import java.util.Map.Entry;
+
+import de.flapdoodle.checks.Preconditions;
+import de.flapdoodle.transition.StateID;
+import de.flapdoodle.transition.initlike.resolver.StateOfNamedType;
+
+final class StateStore implements StateOfNamedType {
+
+	private static final int BITS = 5;
+	private static final int WIDTH = 1 << BITS;
+	private static final int MASK = WIDTH - 1;
+
+	private final DependencyIndex dependencyIndex;
+	private final int shift;
+	private final Object[] root;
+	private final int size;
+
+	private StateStore(DependencyIndex dependencyIndex, int shift, Object[] root, int size) {
+		this.dependencyIndex = dependencyIndex;
+		this.shift = shift;
+		this.root = root;
+		this.size = size;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean contains(int ordinal) {
+		return get(ordinal) != null;
+	}
+
+	public boolean contains(StateID<?> state) {
+		int ordinal = dependencyIndex.indexOf(state);
+		return ordinal >= 0 && contains(ordinal);
+	}
+
+	public State<?> get(int ordinal) {
+		Object[] node = root;
+		for (int level = shift; level > 0; level -= BITS) {
+			node = (Object[]) node[(ordinal >>> level) & MASK];
+			if (node == null) {
+				return null;
+			}
+		}
+		return (State<?>) node[ordinal & MASK];
+	}
+
+	@SuppressWarnings("unchecked")
+	public <D> State<D> get(StateID<D> state) {
+		return (State<D>) get(dependencyIndex.ordinalOf(state));
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <D> D of(StateID<D> type) {
+		int ordinal = dependencyIndex.indexOf(type);
+		State<D> state = ordinal >= 0 ? (State<D>) get(ordinal) : null;
+		if (state == null) {
+			throw new NullPointerException("could find state for " + type);
+		}
+		return state.value();
+	}
+
+	public StateStore with(Map<StateID<?>, State<?>> states) {
+		if (states.isEmpty()) {
+			return this;
+		}
+		Object[] newRoot = root;
+		int newSize = size;
+		for (Entry<StateID<?>, State<?>> entry : states.entrySet()) {
+			int ordinal = dependencyIndex.ordinalOf(entry.getKey());
+			if (get(ordinal) == null) {
+				newSize++;
+			}
+			newRoot = with(newRoot, shift, ordinal, Preconditions.checkNotNull(entry.getValue(), "state is null"));
+		}
+		return new StateStore(dependencyIndex, shift, newRoot, newSize);
+	}
+
+	private static Object[] with(Object[] node, int level, int ordinal, State<?> state) {
+		Object[] copy = node != null ? node.clone() : new Object[WIDTH];
+		if (level == 0) {
+			copy[ordinal & MASK] = state;
+		} else {
+			int index = (ordinal >>> level) & MASK;
+			copy[index] = with((Object[]) copy[index], level - BITS, ordinal, state);
+		}
+		return copy;
+	}
+
+	public static StateStore empty(DependencyIndex dependencyIndex) {
+		int shift = 0;
+		while ((long) WIDTH << shift < dependencyIndex.size()) {
+			shift += BITS;
+		}
+		return new StateStore(dependencyIndex, shift, new Object[WIDTH], 0);
+	}
+}
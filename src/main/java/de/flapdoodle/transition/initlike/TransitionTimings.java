@@ -0,0 +1,93 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.initlike;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import de.flapdoodle.transition.StateID;
+
+public final class TransitionTimings implements InitListener {
+
+	private final ConcurrentMap<StateID<?>, LatencyHistogram> transitions = new ConcurrentHashMap<>();
+	private final ConcurrentMap<StateID<?>, LatencyHistogram> failedTransitions = new ConcurrentHashMap<>();
+	private final ConcurrentMap<StateID<?>, LatencyHistogram> tearDowns = new ConcurrentHashMap<>();
+	private final ConcurrentMap<StateID<?>, LatencyHistogram> failedTearDowns = new ConcurrentHashMap<>();
+
+	private TransitionTimings() {
+	}
+
+	@Override
+	public <T> void onStateReached(NamedTypeAndValue<T> stateAndValue) {
+	}
+
+	@Override
+	public <T> void onStateTearDown(NamedTypeAndValue<T> stateAndValue) {
+	}
+
+	@Override
+	public void onTransitionFinished(StateID<?> state, long startedAt, Duration duration) {
+		transitions.computeIfAbsent(state, s -> new LatencyHistogram()).record(duration);
+	}
+
+	@Override
+	public void onTransitionFailed(StateID<?> state, long startedAt, Duration duration, RuntimeException error) {
+		failedTransitions.computeIfAbsent(state, s -> new LatencyHistogram()).record(duration);
+	}
+
+	@Override
+	public void onTearDownFinished(StateID<?> state, long startedAt, Duration duration) {
+		tearDowns.computeIfAbsent(state, s -> new LatencyHistogram()).record(duration);
+	}
+
+	@Override
+	public void onTearDownFailed(StateID<?> state, long startedAt, Duration duration, RuntimeException error) {
+		failedTearDowns.computeIfAbsent(state, s -> new LatencyHistogram()).record(duration);
+	}
+
+	public Optional<LatencyHistogram> transitionOf(StateID<?> state) {
+		return Optional.ofNullable(transitions.get(state));
+	}
+
+	public Optional<LatencyHistogram> failedTransitionOf(StateID<?> state) {
+		return Optional.ofNullable(failedTransitions.get(state));
+	}
+
+	public Optional<LatencyHistogram> tearDownOf(StateID<?> state) {
+		return Optional.ofNullable(tearDowns.get(state));
+	}
+
+	public Optional<LatencyHistogram> failedTearDownOf(StateID<?> state) {
+		return Optional.ofNullable(failedTearDowns.get(state));
+	}
+
+	public Map<StateID<?>, LatencyHistogram> transitions() {
+		return Collections.unmodifiableMap(transitions);
+	}
+
+	public Map<StateID<?>, LatencyHistogram> tearDowns() {
+		return Collections.unmodifiableMap(tearDowns);
+	}
+
+	public static TransitionTimings create() {
+		return new TransitionTimings();
+	}
+}
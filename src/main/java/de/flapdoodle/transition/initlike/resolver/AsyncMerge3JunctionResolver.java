@@ -0,0 +1,45 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.initlike.resolver;
+
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+import de.flapdoodle.transition.initlike.State;
+import de.flapdoodle.transition.initlike.transitions.AsyncMerge3Transition;
+import de.flapdoodle.transition.routes.Merge3Junction;
+import de.flapdoodle.transition.routes.Route.Transition;
+import de.flapdoodle.transition.routes.SingleDestination;
+
+class AsyncMerge3JunctionResolver implements AsyncTransitionResolver {
+
+	@Override
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public <T> Optional<Function<StateOfNamedType, CompletionStage<State<T>>>> resolve(SingleDestination<T> route, Transition<T> transition) {
+		if (route instanceof Merge3Junction && transition instanceof AsyncMerge3Transition) {
+			return Optional.of(resolveMerge3Junction((Merge3Junction) route, (AsyncMerge3Transition) transition));
+		}
+		return Optional.empty();
+	}
+
+	private <A, B, C, T> Function<StateOfNamedType, CompletionStage<State<T>>> resolveMerge3Junction(Merge3Junction<A, B, C, T> route,
+			AsyncMerge3Transition<A, B, C, T> transition) {
+		return resolver -> transition.apply(resolver.of(route.left()), resolver.of(route.middle()), resolver.of(route.right()));
+	}
+
+}
@@ -32,7 +32,9 @@ public interface TransitionResolver {
 	static Collection<TransitionResolver> DEFAULT_RESOLVERS = Collections.unmodifiableList(Arrays.asList(new StartResolver(),
 			new BridgeResolver(),
 			new MergingJunctionResolver(),
-			new Merge3JunctionResolver()));
+			new Merge3JunctionResolver(),
+			new DeferredBridgeResolver(),
+			new DeferredMergingJunctionResolver()));
 
 	static Collection<TransitionResolver> defaultResolvers() {
 		return DEFAULT_RESOLVERS;
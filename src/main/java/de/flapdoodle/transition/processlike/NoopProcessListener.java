@@ -0,0 +1,33 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.processlike;
+
+import java.util.Optional;
+
+import de.flapdoodle.transition.routes.Route;
+
+enum NoopProcessListener implements ProcessListener {
+	INSTANCE;
+
+	@Override
+	public void onStateChange(Optional<? extends State<?>> lastState, State<?> newState) {
+	}
+
+	@Override
+	public void onStateChangeFailedWithRetry(Route<?> currentRoute, Optional<? extends State<?>> lastState) {
+	}
+}
@@ -16,21 +16,32 @@
  */
 package de.flapdoodle.transition.processlike;
 
-import java.util.LinkedHashMap;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import de.flapdoodle.checks.Preconditions;
+import de.flapdoodle.transition.FlightRecorderEvents;
 import de.flapdoodle.transition.StateID;
+import de.flapdoodle.transition.StateIndex;
+import de.flapdoodle.transition.TransitionExecutors;
 import de.flapdoodle.transition.processlike.exceptions.AbortException;
+import de.flapdoodle.transition.processlike.exceptions.ProcessException;
 import de.flapdoodle.transition.processlike.exceptions.RetryException;
 import de.flapdoodle.transition.processlike.transitions.BridgeTransition;
 import de.flapdoodle.transition.processlike.transitions.EndTransition;
 import de.flapdoodle.transition.processlike.transitions.PartingTransition;
 import de.flapdoodle.transition.processlike.transitions.StartTransition;
 import de.flapdoodle.transition.routes.Bridge;
+import de.flapdoodle.transition.routes.End;
 import de.flapdoodle.transition.routes.PartingWay;
 import de.flapdoodle.transition.routes.Route;
 import de.flapdoodle.transition.routes.Route.Transition;
@@ -40,90 +51,411 @@ import de.flapdoodle.types.Either;
 
 public class ProcessEngineLike {
 
-	private final ProcessRoutes<SingleSource<?,?>> routes;
-	private final Start<?> start;
-	private final Map<StateID<?>, SingleSource<?, ?>> sourceMap;
+	private static final long NEXT = 0;
+	private static final long END = -1;
+
+	private final StartStep<?> startStep;
+	private final StateIndex sourceIndex;
+	private final Step[] stepBySource;
 
 	private ProcessEngineLike(ProcessRoutes<SingleSource<?,?>> routes, Start<?> start, Map<StateID<?>, SingleSource<?,?>> sourceMap) {
-		this.routes = Preconditions.checkNotNull(routes,"routes is null");
-		this.start = Preconditions.checkNotNull(start,"start is null");
-		this.sourceMap = new LinkedHashMap<>(Preconditions.checkNotNull(sourceMap,"sourceMap is null"));
+		Preconditions.checkNotNull(routes,"routes is null");
+		Preconditions.checkNotNull(sourceMap,"sourceMap is null");
+		Preconditions.checkNotNull(start,"start is null");
+		this.sourceIndex = StateIndex.of(sourceMap.keySet());
+		this.startStep = (StartStep<?>) stepOf(sourceIndex, start, routes.transitionOf(start), routes.retryPolicyOf(start));
+		this.stepBySource = new Step[sourceIndex.size()];
+		for (int i = 0; i < sourceIndex.size(); i++) {
+			SingleSource<?, ?> route = sourceMap.get(sourceIndex.stateOf(i));
+			stepBySource[i] = stepOf(sourceIndex, route, routes.transitionOf(route), routes.retryPolicyOf(route));
+		}
 	}
-	
-	@SuppressWarnings({ "unchecked", "rawtypes" })
-	public <S,D> void run(ProcessListener listener) {
-		SingleSource<S,D> currentRoute = (SingleSource<S, D>) start;
-		
-		Optional<State<S>> currentState=Optional.empty();
-		Optional<State<D>> newState=Optional.empty();
-		
+
+	public void run() {
+		run(ProcessListener.noop());
+	}
+
+	public void run(ProcessListener listener) {
+		new Execution(listener, null, null).runToEnd();
+	}
+
+	public void run(Object startValue, ProcessListener listener) {
+		Execution execution = new Execution(listener, null, null);
+		startStep.startWith(execution, startValue);
+		execution.runToEnd();
+	}
+
+	public void run(ProcessJournal journal, String instanceId, ProcessListener listener) {
+		Execution execution = journaled(journal, instanceId, listener);
+		Preconditions.checkArgument(journal.register(instanceId), "instance %s already in journal", instanceId);
+		execution.runToEnd();
+	}
+
+	public void resume(ProcessJournal journal, String instanceId, ProcessListener listener) {
+		Execution execution = journaled(journal, instanceId, listener);
+		if (!journal.hasEnded(instanceId)) {
+			execution.resume(journal.lastStateOf(instanceId));
+			execution.runToEnd();
+		}
+	}
+
+	private Execution journaled(ProcessJournal journal, String instanceId, ProcessListener listener) {
+		Preconditions.checkNotNull(journal, "journal is null");
+		Preconditions.checkNotNull(instanceId, "instanceId is null");
+		return new Execution(listener, journal, instanceId);
+	}
+
+	StateID<?> startDestination() {
+		return startStep.destination;
+	}
+
+	public CompletionStage<Void> runAsync(ProcessListener listener) {
+		return runAsync(listener, TransitionExecutors.threadPerTransition());
+	}
+
+	public CompletionStage<Void> runAsync(ProcessListener listener, Executor executor) {
+		Preconditions.checkNotNull(executor, "executor is null");
+		CompletableFuture<Long> result = new CompletableFuture<>();
+		new Execution(listener, null, null).continueAsync(executor, result, true);
+		return result.thenApply(steps -> (Void) null);
+	}
+
+	CompletableFuture<Long> runFromAsync(Object startValue, ProcessListener listener, Executor executor, Optional<ProcessJournal> journal, String instanceId) {
+		Preconditions.checkNotNull(executor, "executor is null");
+		CompletableFuture<Long> result = new CompletableFuture<>();
 		try {
-			
-			do {
-				try {
-					newState = run(currentRoute, currentState.map(s -> s.value()).orElse(null));
-					if (newState.isPresent()) {
-						currentRoute = (SingleSource<S, D>) sourceMap.get(newState.get().type());
-						D newStateValue = newState.get().value();
-						listener.onStateChange(currentState, newState.get());
-						currentState = (Optional) newState;
+			Execution execution = new Execution(listener, journal.orElse(null), instanceId);
+			startStep.startWith(execution, startValue);
+			execution.continueAsync(executor, result, false);
+		} catch (RuntimeException rx) {
+			result.completeExceptionally(rx);
+		}
+		return result;
+	}
+
+	CompletableFuture<Long> resumeAsync(ProcessJournal journal, String instanceId, ProcessListener listener, Executor executor) {
+		Preconditions.checkNotNull(executor, "executor is null");
+		CompletableFuture<Long> result = new CompletableFuture<>();
+		try {
+			Execution execution = journaled(journal, instanceId, listener);
+			if (journal.hasEnded(instanceId)) {
+				result.complete(0L);
+			} else {
+				execution.resume(journal.lastStateOf(instanceId));
+				execution.continueAsync(executor, result, false);
+			}
+		} catch (RuntimeException rx) {
+			result.completeExceptionally(rx);
+		}
+		return result;
+	}
+
+	private class Execution {
+		private final ProcessListener listener;
+		private final boolean notify;
+		private final ProcessJournal journal;
+		private final String instanceId;
+
+		private Step currentStep = startStep;
+		private StateID<?> currentType;
+		private Object currentValue;
+		private State<?> currentState;
+		private long steps;
+		private int failedAttempts;
+		private long firstFailedAt;
+
+		private Execution(ProcessListener listener, ProcessJournal journal, String instanceId) {
+			this.listener = Preconditions.checkNotNull(listener, "listener is null");
+			this.notify = listener != ProcessListener.noop();
+			this.journal = journal;
+			this.instanceId = instanceId;
+		}
+
+		private void resume(Optional<State<?>> lastState) {
+			if (lastState.isPresent()) {
+				State<?> state = lastState.get();
+				int source = sourceIndex.indexOf(state.type());
+				Preconditions.checkArgument(source >= 0, "no route from %s", state.type());
+				currentStep = stepBySource[source];
+				currentType = state.type();
+				currentValue = state.value();
+				if (notify) {
+					currentState = state;
+					listener.onStateChange(Optional.empty(), state);
+				}
+			}
+		}
+
+		private long runToEnd() {
+			try {
+				long next;
+				while ((next = step()) != END) {
+					if (next != NEXT) {
+						waitForRetry(next);
 					}
+				}
+				return steps;
+			} catch (RuntimeException rx) {
+				throw abort(rx);
+			}
+		}
+
+		private long step() {
+			Step step = currentStep;
+			if (step == null) {
+				throw new IllegalArgumentException("no route from " + currentType);
+			}
+			steps++;
+			if (!notify) {
+				try {
+					return succeeded(step.run(this, currentValue));
 				} catch (RetryException rx) {
-					Optional<State<?>> lastState=(Optional) newState;
-					listener.onStateChangeFailedWithRetry(currentRoute, lastState);
+					return retry(step, rx);
 				}
-			} while (newState.isPresent());
-		} catch (RuntimeException rx) {
-			throw new AbortException("aborted", currentRoute, currentState, rx);
+			}
+
+			long startedAt = System.nanoTime();
+			listener.onStepStarted(step.route, startedAt);
+			try {
+				boolean next = step.run(this, currentValue);
+				listener.onStepFinished(step.route, startedAt, Duration.ofNanos(System.nanoTime() - startedAt));
+				return succeeded(next);
+			} catch (RetryException rx) {
+				listener.onStepFailed(step.route, startedAt, Duration.ofNanos(System.nanoTime() - startedAt), rx);
+				return retry(step, rx);
+			} catch (RuntimeException rx) {
+				listener.onStepFailed(step.route, startedAt, Duration.ofNanos(System.nanoTime() - startedAt), rx);
+				throw rx;
+			}
+		}
+
+		private long succeeded(boolean next) {
+			failedAttempts = 0;
+			if (!next && journal != null) {
+				journal.ended(instanceId);
+			}
+			return next ? NEXT : END;
+		}
+
+		private long retry(Step step, RetryException cause) {
+			FlightRecorderEvents.retry(step.route, Optional.ofNullable(currentType));
+			if (notify) {
+				listener.onStateChangeFailedWithRetry(step.route, Optional.ofNullable(currentState));
+			}
+			long now = System.nanoTime();
+			if (failedAttempts++ == 0) {
+				firstFailedAt = now;
+			}
+			Optional<Duration> delay = step.retryPolicy.nextDelay(failedAttempts, Duration.ofNanos(now - firstFailedAt));
+			if (!delay.isPresent()) {
+				if (notify) {
+					listener.onRetryExhausted(step.route, failedAttempts, cause);
+				}
+				throw cause;
+			}
+			if (notify) {
+				listener.onRetryScheduled(step.route, failedAttempts, delay.get());
+			}
+			return Math.max(delay.get().toNanos(), NEXT);
+		}
+
+		private void moveTo(Route<?> route, StateID<?> type, int source, Object value) {
+			if (value == null) {
+				throw new NullPointerException(route + ": result is null");
+			}
+			if (journal != null) {
+				journal.stateChanged(instanceId, type, value);
+			}
+			StateID<?> lastType = currentType;
+			currentStep = source >= 0 ? stepBySource[source] : null;
+			currentType = type;
+			currentValue = value;
+			FlightRecorderEvents.stateChanged(lastType, type, route);
+			if (notify) {
+				State<?> lastState = currentState;
+				currentState = stateOf(type, value);
+				listener.onStateChange(Optional.ofNullable(lastState), currentState);
+			}
+		}
+
+		private void continueAsync(Executor executor, CompletableFuture<Long> result, boolean yieldEachStep) {
+			try {
+				executor.execute(() -> {
+					try {
+						long next = step();
+						while (next == NEXT && !yieldEachStep) {
+							next = step();
+						}
+						if (next == END) {
+							result.complete(steps);
+						} else if (next == NEXT) {
+							continueAsync(executor, result, yieldEachStep);
+						} else {
+							TransitionExecutors.delayed(next, TimeUnit.NANOSECONDS)
+									.execute(() -> continueAsync(executor, result, yieldEachStep));
+						}
+					} catch (RuntimeException rx) {
+						result.completeExceptionally(abort(rx));
+					} catch (Throwable error) {
+						result.completeExceptionally(error);
+					}
+				});
+			} catch (RejectedExecutionException rx) {
+				result.completeExceptionally(abort(rx));
+			}
+		}
+
+		private AbortException abort(RuntimeException cause) {
+			Route<?> route = currentStep != null ? currentStep.route : null;
+			Optional<State<?>> state = currentType != null
+					? Optional.of(currentState != null ? currentState : stateOf(currentType, currentValue))
+					: Optional.empty();
+			FlightRecorderEvents.aborted(route, Optional.ofNullable(currentType), cause);
+			return new AbortException("aborted", route, state, cause);
+		}
+	}
+
+	private static void waitForRetry(long nanos) {
+		CountDownLatch retry = new CountDownLatch(1);
+		TransitionExecutors.delayed(nanos, TimeUnit.NANOSECONDS).execute(retry::countDown);
+		try {
+			retry.await();
+		} catch (InterruptedException ix) {
+			Thread.currentThread().interrupt();
+			throw new ProcessException("interrupted while waiting for retry", ix);
 		}
 	}
 
 	@SuppressWarnings("unchecked")
-	private <S,D> Optional<State<D>> run(SingleSource<S,D> currentRoute, S currentState) {
-		Transition<D> transition = routes.transitionOf(currentRoute);
-		if (transition instanceof StartTransition) {
-			return runStart((Start<D>) currentRoute, (StartTransition<D>) transition, currentState);
+	private static <T> State<T> stateOf(StateID<T> type, Object value) {
+		return State.of(type, (T) value);
+	}
+
+	private static abstract class Step {
+		protected final SingleSource<?, ?> route;
+		protected final RetryPolicy retryPolicy;
+
+		private Step(SingleSource<?, ?> route, RetryPolicy retryPolicy) {
+			this.route = route;
+			this.retryPolicy = retryPolicy;
 		}
-		if (transition instanceof BridgeTransition) {
-			return runBridge((Bridge<S,D>) currentRoute, (BridgeTransition<S,D>) transition, currentState);
+
+		protected abstract boolean run(ProcessEngineLike.Execution execution, Object current);
+	}
+
+	private static final class StartStep<D> extends Step {
+		private final StartTransition<D> transition;
+		private final StateID<D> destination;
+		private final int next;
+
+		private StartStep(Start<D> route, StartTransition<D> transition, int next, RetryPolicy retryPolicy) {
+			super(route, retryPolicy);
+			this.transition = transition;
+			this.destination = route.destination();
+			this.next = next;
 		}
-		if (transition instanceof EndTransition) {
-			return runEnd((EndTransition<S>) transition, currentState);
+
+		@Override
+		protected boolean run(ProcessEngineLike.Execution execution, Object current) {
+			Preconditions.checkArgument(current==null, "starting, but current state: %s",current);
+			execution.moveTo(route, destination, next, transition.get());
+			return true;
 		}
-		if (transition instanceof PartingTransition) {
-			return runPartingResolved((PartingWay<S,D,D>) currentRoute, (PartingTransition<S,D,D>) transition, currentState);
+
+		private void startWith(ProcessEngineLike.Execution execution, Object startValue) {
+			Preconditions.checkNotNull(startValue, "startValue is null");
+			Preconditions.checkArgument(destination.type().isInstance(startValue), "start value %s is not a %s", startValue, destination);
+			execution.moveTo(route, destination, next, startValue);
 		}
-		
-		throw new IllegalArgumentException(""+currentRoute+": could not run "+transition);
 	}
 
-	private <D> Optional<State<D>> runStart(Start<D> startRoute, StartTransition<D> start, Object currentState) {
-		Preconditions.checkArgument(currentState==null, "starting, but current state: %s",currentState);
-		return Optional.of(State.of(startRoute.destination(), start.get()));
-	}
+	private static final class BridgeStep<S, D> extends Step {
+		private final BridgeTransition<S, D> transition;
+		private final StateID<D> destination;
+		private final int next;
+
+		private BridgeStep(Bridge<S, D> route, BridgeTransition<S, D> transition, int next, RetryPolicy retryPolicy) {
+			super(route, retryPolicy);
+			this.transition = transition;
+			this.destination = route.destination();
+			this.next = next;
+		}
 
-	private <S,D> Optional<State<D>> runBridge(Bridge<S,D> bridgeRoute, BridgeTransition<S,D> bridge, S currentState) {
-		Preconditions.checkNotNull(currentState, "bridge, but current state is null");
-		return Optional.of(State.of(bridgeRoute.destination(), bridge.apply(currentState)));
+		@Override
+		@SuppressWarnings("unchecked")
+		protected boolean run(ProcessEngineLike.Execution execution, Object current) {
+			Preconditions.checkNotNull(current, "bridge, but current state is null");
+			execution.moveTo(route, destination, next, transition.apply((S) current));
+			return true;
+		}
 	}
 
-	private static <S,D> Optional<State<D>> runEnd(EndTransition<S> end, S currentState) {
-		Preconditions.checkNotNull(currentState, "end, but current state is null");
-		end.accept(currentState);
-		return Optional.empty();
+	private static final class PartingStep<S, A, B> extends Step {
+		private final PartingTransition<S, A, B> transition;
+		private final StateID<A> oneDestination;
+		private final int oneNext;
+		private final StateID<B> otherDestination;
+		private final int otherNext;
+
+		private PartingStep(PartingWay<S, A, B> route, PartingTransition<S, A, B> transition, int oneNext, int otherNext, RetryPolicy retryPolicy) {
+			super(route, retryPolicy);
+			this.transition = transition;
+			this.oneDestination = route.oneDestination();
+			this.oneNext = oneNext;
+			this.otherDestination = route.otherDestination();
+			this.otherNext = otherNext;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		protected boolean run(ProcessEngineLike.Execution execution, Object current) {
+			Preconditions.checkNotNull(current, "parting, but current state is null");
+			Either<A, B> either = transition.apply((S) current);
+			if (either.isLeft()) {
+				execution.moveTo(route, oneDestination, oneNext, either.left());
+			} else {
+				execution.moveTo(route, otherDestination, otherNext, either.right());
+			}
+			return true;
+		}
 	}
-	
-	private static <S,D> Optional<State<D>> runPartingResolved(PartingWay<S, D, D> route, PartingTransition<S, D, D> transition, S currentState) {
-		Either<Optional<State<D>>, Optional<State<D>>> either = runParting(route, transition, currentState);
-		return either.isLeft() ? either.left() : either.right();
+
+	private static final class EndStep<S> extends Step {
+		private final EndTransition<S> transition;
+
+		private EndStep(End<S> route, EndTransition<S> transition, RetryPolicy retryPolicy) {
+			super(route, retryPolicy);
+			this.transition = transition;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		protected boolean run(ProcessEngineLike.Execution execution, Object current) {
+			Preconditions.checkNotNull(current, "end, but current state is null");
+			transition.accept((S) current);
+			return false;
+		}
 	}
-	
-	private static <S,A,B> Either<Optional<State<A>>, Optional<State<B>>> runParting(PartingWay<S, A, B> route, PartingTransition<S, A, B> transition, S currentState) {
-		Preconditions.checkNotNull(currentState, "parting, but current state is null");
-		Either<A, B> either = transition.apply(currentState);
-		return either.isLeft() 
-				? Either.left(Optional.of(State.of(route.oneDestination(), either.left()))) 
-				: Either.right(Optional.of(State.of(route.otherDestination(), either.right())));
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Step stepOf(StateIndex sourceIndex, SingleSource<?, ?> route, Transition<?> transition, RetryPolicy retryPolicy) {
+		if (route instanceof Start && transition instanceof StartTransition) {
+			Start<?> start = (Start<?>) route;
+			return new StartStep((Start) start, (StartTransition) transition, sourceIndex.indexOf(start.destination()), retryPolicy);
+		}
+		if (route instanceof Bridge && transition instanceof BridgeTransition) {
+			Bridge<?, ?> bridge = (Bridge<?, ?>) route;
+			return new BridgeStep((Bridge) bridge, (BridgeTransition) transition, sourceIndex.indexOf(bridge.destination()), retryPolicy);
+		}
+		if (route instanceof PartingWay && transition instanceof PartingTransition) {
+			PartingWay<?, ?, ?> partingWay = (PartingWay<?, ?, ?>) route;
+			return new PartingStep((PartingWay) partingWay, (PartingTransition) transition,
+					sourceIndex.indexOf(partingWay.oneDestination()), sourceIndex.indexOf(partingWay.otherDestination()), retryPolicy);
+		}
+		if (route instanceof End && transition instanceof EndTransition) {
+			return new EndStep((End) route, (EndTransition) transition, retryPolicy);
+		}
+		throw new IllegalArgumentException(""+route+": could not run "+transition);
 	}
 
 	public static ProcessEngineLike with(ProcessRoutes<SingleSource<?,?>> routes) {
@@ -0,0 +1,365 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.processlike;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import de.flapdoodle.checks.Preconditions;
+import de.flapdoodle.transition.StateID;
+
+public final class ProcessJournal implements AutoCloseable {
+
+	private static final byte STATE = 1;
+	private static final byte ENDED = 2;
+	private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+	private static final int MAX_BATCH_SIZE = 1024;
+	private static final Pending CLOSE = new Pending(null);
+
+	private final Path file;
+	private final FileChannel channel;
+	private final Map<String, Entry> lastEntries;
+	private final Set<String> instances;
+	private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+	private final Thread writer;
+	private final AtomicLong records = new AtomicLong();
+	private final AtomicLong batches = new AtomicLong();
+
+	private boolean closed;
+	private volatile RuntimeException failure;
+
+	private ProcessJournal(Path file, FileChannel channel, Map<String, Entry> lastEntries) {
+		this.file = file;
+		this.channel = channel;
+		this.lastEntries = lastEntries;
+		this.instances = ConcurrentHashMap.newKeySet();
+		this.instances.addAll(lastEntries.keySet());
+		this.writer = new Thread(this::writeLoop, "process-journal-" + file.getFileName());
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	public Path file() {
+		return file;
+	}
+
+	public long records() {
+		return records.get();
+	}
+
+	public long batches() {
+		return batches.get();
+	}
+
+	public Set<String> unfinished() {
+		return Collections.unmodifiableSet(lastEntries.entrySet().stream()
+				.filter(e -> !e.getValue().ended)
+				.map(Map.Entry::getKey)
+				.collect(Collectors.toSet()));
+	}
+
+	public boolean contains(String instanceId) {
+		return lastEntries.containsKey(instanceId);
+	}
+
+	public boolean hasEnded(String instanceId) {
+		Entry entry = lastEntries.get(instanceId);
+		return entry != null && entry.ended;
+	}
+
+	public Optional<State<?>> lastStateOf(String instanceId) {
+		Entry entry = lastEntries.get(instanceId);
+		return entry != null && !entry.ended
+				? Optional.of(stateOf(entry))
+				: Optional.empty();
+	}
+
+	boolean register(String instanceId) {
+		return instances.add(instanceId);
+	}
+
+	void stateChanged(String instanceId, StateID<?> type, Object value) {
+		append(instanceId, new Entry(type.name(), type.type().getName(), serialize(type, value), false));
+	}
+
+	void ended(String instanceId) {
+		append(instanceId, new Entry(null, null, null, true));
+	}
+
+	private void append(String instanceId, Entry entry) {
+		Pending pending = new Pending(record(instanceId, entry));
+		synchronized (this) {
+			if (closed) {
+				throw new IllegalStateException("journal " + file + " is closed");
+			}
+			if (failure != null) {
+				throw failure;
+			}
+			queue.add(pending);
+		}
+		try {
+			pending.done.join();
+		} catch (CompletionException cx) {
+			throw cx.getCause() instanceof RuntimeException
+					? (RuntimeException) cx.getCause()
+					: cx;
+		}
+		lastEntries.put(instanceId, entry);
+	}
+
+	@Override
+	public void close() {
+		synchronized (this) {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			queue.add(CLOSE);
+		}
+		try {
+			writer.join();
+		} catch (InterruptedException ix) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			channel.close();
+		} catch (IOException iox) {
+			throw new UncheckedIOException("could not close " + file, iox);
+		}
+	}
+
+	private void writeLoop() {
+		List<Pending> batch = new ArrayList<>();
+		try {
+			boolean running = true;
+			while (running) {
+				batch.add(queue.take());
+				queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+				running = !batch.remove(CLOSE);
+				write(batch);
+				batch.clear();
+			}
+		} catch (InterruptedException ix) {
+			failed(batch, new IllegalStateException("writer of " + file + " was interrupted", ix));
+			Thread.currentThread().interrupt();
+		} catch (IOException iox) {
+			failed(batch, new UncheckedIOException("could not write to " + file, iox));
+		} catch (RuntimeException rx) {
+			failed(batch, rx);
+			throw rx;
+		} catch (Error error) {
+			failed(batch, new IllegalStateException("writer of " + file + " failed", error));
+			throw error;
+		}
+	}
+
+	private void failed(List<Pending> batch, RuntimeException cause) {
+		synchronized (this) {
+			failure = cause;
+		}
+		queue.drainTo(batch);
+		batch.forEach(p -> p.done.completeExceptionally(cause));
+	}
+
+	private void write(List<Pending> batch) throws IOException {
+		if (batch.isEmpty()) {
+			return;
+		}
+		ByteBuffer[] buffers = batch.stream()
+				.map(p -> p.record)
+				.toArray(ByteBuffer[]::new);
+		while (buffers[buffers.length - 1].hasRemaining()) {
+			channel.write(buffers);
+		}
+		channel.force(false);
+		records.addAndGet(batch.size());
+		batches.incrementAndGet();
+		batch.forEach(p -> p.done.complete(null));
+	}
+
+	private static ByteBuffer record(String instanceId, Entry entry) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeByte(entry.ended ? ENDED : STATE);
+			out.writeUTF(instanceId);
+			if (!entry.ended) {
+				out.writeUTF(entry.stateName);
+				out.writeUTF(entry.typeName);
+				out.writeInt(entry.value.length);
+				out.write(entry.value);
+			}
+			out.flush();
+			byte[] payload = bytes.toByteArray();
+			ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payload.length);
+			buffer.putInt(payload.length).putLong(checksumOf(payload)).put(payload);
+			buffer.flip();
+			return buffer;
+		} catch (IOException iox) {
+			throw new UncheckedIOException("could not encode record of " + instanceId, iox);
+		}
+	}
+
+	private static long replay(FileChannel channel, Map<String, Entry> lastEntries) throws IOException {
+		long size = channel.size();
+		long position = 0;
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0))));
+		try {
+			while (position + HEADER_SIZE <= size) {
+				int length = in.readInt();
+				long checksum = in.readLong();
+				if (length < 0 || position + HEADER_SIZE + length > size) {
+					break;
+				}
+				byte[] payload = new byte[length];
+				in.readFully(payload);
+				if (checksumOf(payload) != checksum) {
+					break;
+				}
+				apply(payload, lastEntries);
+				position += HEADER_SIZE + length;
+			}
+		} catch (EOFException eof) {
+			// torn write at the end of the journal
+		}
+		return position;
+	}
+
+	private static void apply(byte[] payload, Map<String, Entry> lastEntries) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+		byte kind = in.readByte();
+		String instanceId = in.readUTF();
+		if (kind == ENDED) {
+			lastEntries.put(instanceId, new Entry(null, null, null, true));
+		} else {
+			String stateName = in.readUTF();
+			String typeName = in.readUTF();
+			byte[] value = new byte[in.readInt()];
+			in.readFully(value);
+			lastEntries.put(instanceId, new Entry(stateName, typeName, value, false));
+		}
+	}
+
+	private static long checksumOf(byte[] payload) {
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		return crc.getValue();
+	}
+
+	private static byte[] serialize(StateID<?> type, Object value) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				out.writeObject(value);
+			}
+			return bytes.toByteArray();
+		} catch (IOException iox) {
+			throw new UncheckedIOException("could not serialize value of " + type, iox);
+		}
+	}
+
+	private static State<?> stateOf(Entry entry) {
+		try {
+			Class<?> type = Class.forName(entry.typeName, false, classLoader());
+			try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(entry.value))) {
+				return stateOf(StateID.of(entry.stateName, type), in.readObject());
+			}
+		} catch (IOException iox) {
+			throw new UncheckedIOException("could not deserialize value of " + entry.stateName + ":" + entry.typeName, iox);
+		} catch (ClassNotFoundException cnfx) {
+			throw new IllegalArgumentException("could not restore " + entry.stateName + ":" + entry.typeName, cnfx);
+		}
+	}
+
+	private static <T> State<T> stateOf(StateID<T> type, Object value) {
+		return State.of(type, type.type().cast(value));
+	}
+
+	private static ClassLoader classLoader() {
+		ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		return contextClassLoader != null ? contextClassLoader : ProcessJournal.class.getClassLoader();
+	}
+
+	private static final class Entry {
+		private final String stateName;
+		private final String typeName;
+		private final byte[] value;
+		private final boolean ended;
+
+		private Entry(String stateName, String typeName, byte[] value, boolean ended) {
+			this.stateName = stateName;
+			this.typeName = typeName;
+			this.value = value;
+			this.ended = ended;
+		}
+	}
+
+	private static final class Pending {
+		private final ByteBuffer record;
+		private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+		private Pending(ByteBuffer record) {
+			this.record = record;
+		}
+	}
+
+	public static ProcessJournal open(Path file) {
+		Preconditions.checkNotNull(file, "file is null");
+		try {
+			FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			try {
+				Map<String, Entry> lastEntries = new ConcurrentHashMap<>();
+				long end = replay(channel, lastEntries);
+				channel.truncate(end);
+				channel.position(end);
+				return new ProcessJournal(file, channel, lastEntries);
+			} catch (IOException | RuntimeException ex) {
+				channel.close();
+				throw ex;
+			}
+		} catch (IOException iox) {
+			throw new UncheckedIOException("could not open journal " + file, iox);
+		}
+	}
+}
@@ -23,14 +23,14 @@ import org.immutables.value.Value.Immutable;
 
 import de.flapdoodle.transition.routes.Route;
 
-public interface ProcessListener extends ProcessOnStateChange, ProcessOnStateChangeFailedWithRetry {
+public interface ProcessListener extends ProcessOnStateChange, ProcessOnStateChangeFailedWithRetry, ProcessOnStep, ProcessOnRetry {
 	
 	public static Helper.Builder builder() {
 		return ImmutableHelper.builder();
 	}
 	
 	public static ProcessListener noop() {
-		return builder().build();
+		return NoopProcessListener.INSTANCE;
 	}
 	
 	@Immutable
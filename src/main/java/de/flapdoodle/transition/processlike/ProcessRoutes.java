@@ -21,6 +21,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
+import de.flapdoodle.checks.Preconditions;
 import de.flapdoodle.transition.processlike.transitions.BridgeTransition;
 import de.flapdoodle.transition.processlike.transitions.EndTransition;
 import de.flapdoodle.transition.processlike.transitions.PartingTransition;
@@ -36,9 +37,11 @@ import de.flapdoodle.transition.routes.Start;
 public class ProcessRoutes<R extends SingleSource<?,?>> {
 
 	private final Map<R, Transition<?>> routeMap;
+	private final Map<SingleSource<?,?>, RetryPolicy> retryPolicies;
 
-	private ProcessRoutes(Map<R, Transition<?>> routeMap) {
+	private ProcessRoutes(Map<R, Transition<?>> routeMap, Map<SingleSource<?,?>, RetryPolicy> retryPolicies) {
 		this.routeMap = new LinkedHashMap<>(routeMap);
+		this.retryPolicies = new LinkedHashMap<>(retryPolicies);
 	}
 
 	public Set<R> all() {
@@ -49,12 +52,18 @@ public class ProcessRoutes<R extends SingleSource<?,?>> {
 		return (Transition<D>) routeMap.get(route);
 	}
 
+	public RetryPolicy retryPolicyOf(SingleSource<?,?> route) {
+		RetryPolicy policy = retryPolicies.get(route);
+		return policy != null ? policy : RetryPolicy.immediate();
+	}
+
 	public static Builder builder() {
 		return new Builder();
 	}
 
 	public static class Builder {
 		Map<SingleSource<?,?>, Route.Transition<?>> routeMap = new LinkedHashMap<>();
+		Map<SingleSource<?,?>, RetryPolicy> retryPolicies = new LinkedHashMap<>();
 
 		private Builder() {
 
@@ -84,8 +93,19 @@ public class ProcessRoutes<R extends SingleSource<?,?>> {
 			return this;
 		}
 
+		public Builder retry(SingleSource<?,?> route, RetryPolicy policy) {
+			Preconditions.checkNotNull(route, "route is null");
+			Preconditions.checkNotNull(policy, "policy is null");
+			RetryPolicy old = retryPolicies.put(route, policy);
+			if (old != null) {
+				throw new IllegalArgumentException("retry policy of " + route + " already set to " + old);
+			}
+			return this;
+		}
+
 		public ProcessRoutes<SingleSource<?,?>> build() {
-			return new ProcessRoutes<>(routeMap);
+			Preconditions.checkArgument(routeMap.keySet().containsAll(retryPolicies.keySet()), "retry policy for unknown route: %s", retryPolicies.keySet());
+			return new ProcessRoutes<>(routeMap, retryPolicies);
 		}
 	}
 }
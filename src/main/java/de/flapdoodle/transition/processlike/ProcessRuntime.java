@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.processlike;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import de.flapdoodle.checks.Preconditions;
+import de.flapdoodle.transition.StateID;
+import de.flapdoodle.transition.TransitionExecutors;
+
+public class ProcessRuntime {
+
+	private static final long NOT_SET = Long.MIN_VALUE;
+
+	private final ProcessEngineLike engine;
+	private final Executor executor;
+	private final ProcessListener listener;
+	private final Optional<ProcessJournal> journal;
+
+	private final LongAdder started = new LongAdder();
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder steps = new LongAdder();
+	private final AtomicLong firstStartedAt = new AtomicLong(NOT_SET);
+	private final AtomicLong lastFinishedAt = new AtomicLong(NOT_SET);
+
+	private ProcessRuntime(ProcessEngineLike engine, Executor executor, ProcessListener listener, Optional<ProcessJournal> journal) {
+		this.engine = Preconditions.checkNotNull(engine, "engine is null");
+		this.executor = Preconditions.checkNotNull(executor, "executor is null");
+		this.listener = Preconditions.checkNotNull(listener, "listener is null");
+		this.journal = Preconditions.checkNotNull(journal, "journal is null");
+	}
+
+	public StateID<?> startType() {
+		return engine.startDestination();
+	}
+
+	public CompletableFuture<Void> submit(Object startValue) {
+		Preconditions.checkNotNull(startValue, "startValue is null");
+		return track(engine.runFromAsync(startValue, listener, executor, Optional.empty(), null));
+	}
+
+	public CompletableFuture<Void> submit(String instanceId, Object startValue) {
+		Preconditions.checkNotNull(instanceId, "instanceId is null");
+		Preconditions.checkNotNull(startValue, "startValue is null");
+		Preconditions.checkArgument(journal.isPresent(), "no journal configured");
+		Preconditions.checkArgument(journal.get().register(instanceId), "instance %s already in journal", instanceId);
+		return track(engine.runFromAsync(startValue, listener, executor, journal, instanceId));
+	}
+
+	public Map<String, CompletableFuture<Void>> resumeUnfinished() {
+		Preconditions.checkArgument(journal.isPresent(), "no journal configured");
+		Map<String, CompletableFuture<Void>> resumed = new LinkedHashMap<>();
+		journal.get().unfinished().stream()
+				.sorted()
+				.forEach(instanceId -> resumed.put(instanceId, track(engine.resumeAsync(journal.get(), instanceId, listener, executor))));
+		return resumed;
+	}
+
+	public List<CompletableFuture<Void>> submitAll(Collection<?> startValues) {
+		Preconditions.checkNotNull(startValues, "startValues is null");
+		return startValues.stream()
+				.map(this::submit)
+				.collect(Collectors.toList());
+	}
+
+	public ProcessThroughput throughput() {
+		long completedCount = completed.sum();
+		long failedCount = failed.sum();
+		long startedCount = started.sum();
+		long firstStart = firstStartedAt.get();
+		long end = startedCount == completedCount + failedCount && lastFinishedAt.get() != NOT_SET
+				? lastFinishedAt.get()
+				: System.nanoTime();
+		return ProcessThroughput.builder()
+				.started(startedCount)
+				.completed(completedCount)
+				.failed(failedCount)
+				.steps(steps.sum())
+				.elapsed(firstStart != NOT_SET ? Duration.ofNanos(end - firstStart) : Duration.ZERO)
+				.build();
+	}
+
+	private CompletableFuture<Void> track(CompletableFuture<Long> instance) {
+		CompletableFuture<Void> result = new CompletableFuture<>();
+		firstStartedAt.compareAndSet(NOT_SET, System.nanoTime());
+		started.increment();
+		instance.whenComplete((count, error) -> {
+			if (error == null) {
+				steps.add(count);
+				finished(completed);
+				result.complete(null);
+			} else {
+				finished(failed);
+				result.completeExceptionally(error);
+			}
+		});
+		return result;
+	}
+
+	private void finished(LongAdder counter) {
+		lastFinishedAt.accumulateAndGet(System.nanoTime(), Math::max);
+		counter.increment();
+	}
+
+	public static ProcessRuntime of(ProcessEngineLike engine) {
+		return of(engine, TransitionExecutors.threadPerTransition());
+	}
+
+	public static ProcessRuntime of(ProcessEngineLike engine, Executor executor) {
+		return of(engine, executor, ProcessListener.noop());
+	}
+
+	public static ProcessRuntime of(ProcessEngineLike engine, Executor executor, ProcessListener listener) {
+		return new ProcessRuntime(engine, executor, listener, Optional.empty());
+	}
+
+	public static ProcessRuntime of(ProcessEngineLike engine, Executor executor, ProcessListener listener, ProcessJournal journal) {
+		return new ProcessRuntime(engine, executor, listener, Optional.of(Preconditions.checkNotNull(journal, "journal is null")));
+	}
+}
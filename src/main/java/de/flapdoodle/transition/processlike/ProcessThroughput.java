@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.processlike;
+
+import java.time.Duration;
+
+import org.immutables.value.Value;
+
+@Value.Immutable
+public interface ProcessThroughput {
+	long started();
+
+	long completed();
+
+	long failed();
+
+	long steps();
+
+	Duration elapsed();
+
+	@Value.Auxiliary
+	@Value.Lazy
+	default long running() {
+		return started() - completed() - failed();
+	}
+
+	@Value.Auxiliary
+	@Value.Lazy
+	default double instancesPerSecond() {
+		return perSecond(completed() + failed());
+	}
+
+	@Value.Auxiliary
+	@Value.Lazy
+	default double stepsPerSecond() {
+		return perSecond(steps());
+	}
+
+	default double perSecond(long count) {
+		long nanos = elapsed().toNanos();
+		return nanos > 0 ? count * 1_000_000_000.0 / nanos : 0.0;
+	}
+
+	public static ImmutableProcessThroughput.Builder builder() {
+		return ImmutableProcessThroughput.builder();
+	}
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.processlike;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.immutables.value.Value;
+
+import de.flapdoodle.checks.Preconditions;
+
+@Value.Immutable
+public interface RetryPolicy {
+
+	@Value.Default
+	default Duration delay() {
+		return Duration.ZERO;
+	}
+
+	@Value.Default
+	default double multiplier() {
+		return 1.0;
+	}
+
+	Optional<Duration> maxDelay();
+
+	@Value.Default
+	default double jitter() {
+		return 0.0;
+	}
+
+	OptionalInt maxAttempts();
+
+	Optional<Duration> budget();
+
+	@Value.Check
+	default void check() {
+		Preconditions.checkArgument(!delay().isNegative(), "delay is negative: %s", delay());
+		Preconditions.checkArgument(multiplier() >= 1.0, "multiplier < 1: %s", multiplier());
+		Preconditions.checkArgument(jitter() >= 0.0 && jitter() <= 1.0, "jitter not in [0..1]: %s", jitter());
+		Preconditions.checkArgument(!maxAttempts().isPresent() || maxAttempts().getAsInt() >= 1, "maxAttempts < 1: %s", maxAttempts());
+	}
+
+	default Optional<Duration> nextDelay(int failedAttempts, Duration elapsed) {
+		if (maxAttempts().isPresent() && failedAttempts >= maxAttempts().getAsInt()) {
+			return Optional.empty();
+		}
+		Duration next = jittered(cappedDelayOf(failedAttempts));
+		if (budget().isPresent() && elapsed.plus(next).compareTo(budget().get()) > 0) {
+			return Optional.empty();
+		}
+		return Optional.of(next);
+	}
+
+	default Duration cappedDelayOf(int failedAttempts) {
+		double nanos = delay().toNanos() * Math.pow(multiplier(), Math.max(0, failedAttempts - 1));
+		if (maxDelay().isPresent()) {
+			nanos = Math.min(nanos, maxDelay().get().toNanos());
+		}
+		return Duration.ofNanos((long) Math.min(nanos, Long.MAX_VALUE));
+	}
+
+	default Duration jittered(Duration delay) {
+		if (jitter() == 0.0 || delay.isZero()) {
+			return delay;
+		}
+		double factor = 1.0 - jitter() + 2.0 * jitter() * ThreadLocalRandom.current().nextDouble();
+		return Duration.ofNanos((long) (delay.toNanos() * factor));
+	}
+
+	public static ImmutableRetryPolicy immediate() {
+		return builder().build();
+	}
+
+	public static ImmutableRetryPolicy fixed(Duration delay) {
+		return builder().delay(delay).build();
+	}
+
+	public static ImmutableRetryPolicy exponential(Duration initialDelay, Duration maxDelay) {
+		return builder().delay(initialDelay).multiplier(2.0).maxDelay(maxDelay).build();
+	}
+
+	public static ImmutableRetryPolicy.Builder builder() {
+		return ImmutableRetryPolicy.builder();
+	}
+}
@@ -31,5 +31,13 @@ public class AbortException extends ProcessException {
 		this.currentRoute = currentRoute;
 		this.currentState = currentState;
 	}
-	
+
+	public Route<?> currentRoute() {
+		return currentRoute;
+	}
+
+	public Optional<? extends State<?>> currentState() {
+		return currentState;
+	}
+
 }
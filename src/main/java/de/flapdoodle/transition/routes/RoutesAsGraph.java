@@ -16,6 +16,7 @@
  */
 package de.flapdoodle.transition.routes;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
@@ -94,6 +95,11 @@ public abstract class RoutesAsGraph {
 
 	public static String routeGraphAsDot(String label, DirectedGraph<StateID<?>, RouteAndVertex> graph,
 			Function<Route<?>, String> routeAsLabel) {
+		return routeGraphAsDot(label, graph, routeAsLabel, t -> Collections.emptyMap());
+	}
+
+	public static String routeGraphAsDot(String label, DirectedGraph<StateID<?>, RouteAndVertex> graph,
+			Function<Route<?>, String> routeAsLabel, Function<StateID<?>, Map<String, String>> additionalNodeAttributes) {
 		return GraphAsDot.builder(RoutesAsGraph::asLabel)
 				.label(label)
 				.edgeAttributes((a, b) -> {
@@ -106,7 +112,9 @@ public abstract class RoutesAsGraph {
 						return asMap("shape", "circle", "label", "");
 					}
 					String nodeLabel = asHumanReadableLabel(t);
-					return asMap("shape", "rectangle", "label", nodeLabel);
+					Map<String, String> attributes = asMap("shape", "rectangle", "label", nodeLabel);
+					attributes.putAll(additionalNodeAttributes.apply(t));
+					return attributes;
 				})
 				.build().asDot(graph);
 	}
@@ -119,7 +127,7 @@ public abstract class RoutesAsGraph {
 		return nodeLabel;
 	}
 
-	private static String routeAsLabel(Route<?> route) {
+	public static String routeAsLabel(Route<?> route) {
 		if (route instanceof Start) {
 			return Start.class.getSimpleName();
 		}
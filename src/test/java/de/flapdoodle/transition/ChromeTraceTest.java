@@ -0,0 +1,123 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.flapdoodle.transition.initlike.InitLike;
+import de.flapdoodle.transition.initlike.InitRoutes;
+import de.flapdoodle.transition.initlike.State;
+import de.flapdoodle.transition.processlike.ProcessEngineLike;
+import de.flapdoodle.transition.processlike.ProcessRoutes;
+import de.flapdoodle.transition.routes.Bridge;
+import de.flapdoodle.transition.routes.End;
+import de.flapdoodle.transition.routes.SingleDestination;
+import de.flapdoodle.transition.routes.SingleSource;
+import de.flapdoodle.transition.routes.Start;
+
+public class ChromeTraceTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void initAndProcessRunsShouldBeWrittenAsTraceEvents() throws IOException {
+		ChromeTrace trace = ChromeTrace.create();
+
+		InitRoutes<SingleDestination<?>> initRoutes = InitRoutes.builder()
+				.state(StateID.of("config", String.class)).isInitializedWith("config")
+				.given(StateID.of("config", String.class)).state(StateID.of("server", String.class)).isDerivedBy(c -> "server " + c)
+				.build();
+
+		try (InitLike.Init<String> state = InitLike.with(initRoutes).init(StateID.of("server", String.class), trace.initListener())) {
+			assertEquals("server config", state.current());
+		}
+
+		ProcessRoutes<SingleSource<?, ?>> processRoutes = ProcessRoutes.builder()
+				.add(Start.of(StateID.of(String.class)), () -> "12")
+				.add(Bridge.of(StateID.of(String.class), StateID.of(Integer.class)), a -> Integer.valueOf(a))
+				.add(End.of(StateID.of(Integer.class)), i -> {
+				})
+				.build();
+
+		ProcessEngineLike.with(processRoutes).run(trace.processListener());
+
+		assertEquals(7, trace.size());
+
+		Path file = temp.getRoot().toPath().resolve("trace.json");
+		trace.writeTo(file);
+
+		String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+		assertTrue(json, json.startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":["));
+		assertTrue(json, json.contains("\"ph\":\"M\""));
+		assertTrue(json, json.contains("{\"name\":\"config:String\",\"cat\":\"init\",\"ph\":\"X\""));
+		assertTrue(json, json.contains("{\"name\":\"server:String\",\"cat\":\"tearDown\",\"ph\":\"X\""));
+		assertTrue(json, json.contains("{\"name\":\"Start -> String\",\"cat\":\"process\",\"ph\":\"X\""));
+		assertTrue(json, json.contains("{\"name\":\"Bridge -> Integer\",\"cat\":\"process\",\"ph\":\"X\""));
+		assertTrue(json, json.contains("{\"name\":\"End Integer\",\"cat\":\"process\",\"ph\":\"X\""));
+		assertTrue(json, json.endsWith("\n]}\n"));
+	}
+
+	@Test
+	public void asyncTransitionShouldBeTracedOnTheThreadThatStartedIt() throws IOException {
+		ChromeTrace trace = ChromeTrace.create();
+
+		InitRoutes<SingleDestination<?>> initRoutes = InitRoutes.builder()
+				.state(String.class).isReachedByAsync(() -> {
+					CompletableFuture<State<String>> result = new CompletableFuture<>();
+					Thread completer = new Thread(() -> {
+						try {
+							Thread.sleep(100);
+						}
+						catch (InterruptedException ix) {
+							Thread.currentThread().interrupt();
+						}
+						result.complete(State.of("hello"));
+					}, "completer");
+					completer.start();
+					return result;
+				})
+				.build();
+
+		try (InitLike.Init<String> state = InitLike.with(initRoutes).init(StateID.of(String.class), trace.initListener())) {
+			assertEquals("hello", state.current());
+		}
+
+		StringWriter json = new StringWriter();
+		trace.writeTo(json);
+
+		assertFalse(json.toString(), json.toString().contains("completer"));
+		assertTrue(json.toString(), json.toString().contains(quoted(Thread.currentThread().getName())));
+	}
+
+	private static String quoted(String value) {
+		return "\"" + value + "\"";
+	}
+}
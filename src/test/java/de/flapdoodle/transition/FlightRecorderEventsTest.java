@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.flapdoodle.transition.initlike.InitLike;
+import de.flapdoodle.transition.initlike.InitRoutes;
+import de.flapdoodle.transition.processlike.ProcessEngineLike;
+import de.flapdoodle.transition.processlike.ProcessListener;
+import de.flapdoodle.transition.processlike.ProcessRoutes;
+import de.flapdoodle.transition.processlike.exceptions.RetryException;
+import de.flapdoodle.transition.routes.Bridge;
+import de.flapdoodle.transition.routes.End;
+import de.flapdoodle.transition.routes.SingleDestination;
+import de.flapdoodle.transition.routes.SingleSource;
+import de.flapdoodle.transition.routes.Start;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class FlightRecorderEventsTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void transitionsAndProcessStepsShouldBeRecorded() throws IOException {
+		assumeTrue(FlightRecorderEvents.supported());
+
+		Path dump = temp.getRoot().toPath().resolve("transition.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("de.flapdoodle.transition.Transition").withThreshold(Duration.ZERO);
+			recording.enable("de.flapdoodle.transition.TearDown").withThreshold(Duration.ZERO);
+			recording.enable("de.flapdoodle.transition.Rollback");
+			recording.enable("de.flapdoodle.transition.StateChange");
+			recording.enable("de.flapdoodle.transition.Retry");
+			recording.start();
+
+			InitRoutes<SingleDestination<?>> initRoutes = InitRoutes.builder()
+					.state(StateID.of("config", String.class)).isInitializedWith("config")
+					.given(StateID.of("config", String.class)).state(StateID.of("server", String.class)).isDerivedBy(c -> {
+						throw new IllegalStateException("broken");
+					})
+					.build();
+
+			try {
+				InitLike.with(initRoutes).init(StateID.of("server", String.class));
+			}
+			catch (RuntimeException rx) {
+				// expected
+			}
+
+			AtomicInteger tries = new AtomicInteger();
+			ProcessRoutes<SingleSource<?, ?>> processRoutes = ProcessRoutes.builder()
+					.add(Start.of(StateID.of(String.class)), () -> "12")
+					.add(Bridge.of(StateID.of(String.class), StateID.of(Integer.class)), a -> {
+						if (tries.incrementAndGet() < 2) {
+							throw new RetryException("not yet");
+						}
+						return Integer.valueOf(a);
+					})
+					.add(End.of(StateID.of(Integer.class)), i -> {
+					})
+					.build();
+
+			ProcessEngineLike.with(processRoutes).run(ProcessListener.noop());
+
+			recording.stop();
+			recording.dump(dump);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+		List<String> transitions = events.stream()
+				.filter(e -> e.getEventType().getName().equals("de.flapdoodle.transition.Transition"))
+				.map(e -> e.getString("state") + "/" + e.getString("routeType") + "/" + (e.getString("error") != null))
+				.collect(Collectors.toList());
+		assertEquals("[config/Start/false, server/Bridge/true]", transitions.toString());
+
+		assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("de.flapdoodle.transition.TearDown")
+				&& e.getString("state").equals("config")));
+		assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("de.flapdoodle.transition.Rollback")
+				&& e.getString("states").equals("server:java.lang.String")));
+		assertEquals(1, events.stream().filter(e -> e.getEventType().getName().equals("de.flapdoodle.transition.Retry")).count());
+		assertEquals(2, events.stream().filter(e -> e.getEventType().getName().equals("de.flapdoodle.transition.StateChange")).count());
+	}
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import de.flapdoodle.checks.Preconditions;
+import de.flapdoodle.transition.initlike.DependencyBuilder;
+import de.flapdoodle.transition.initlike.InitRoutes;
+import de.flapdoodle.transition.initlike.State;
+import de.flapdoodle.transition.processlike.ProcessRoutes;
+import de.flapdoodle.transition.routes.Bridge;
+import de.flapdoodle.transition.routes.End;
+import de.flapdoodle.transition.routes.SingleDestination;
+import de.flapdoodle.transition.routes.SingleSource;
+import de.flapdoodle.transition.routes.Start;
+
+public final class GeneratedRoutes {
+
+	public enum Shape {
+		CHAIN, FAN, DIAMONDS
+	}
+
+	private final InitRoutes<SingleDestination<?>> routes;
+	private final Set<StateID<?>> destinations;
+
+	private GeneratedRoutes(InitRoutes<SingleDestination<?>> routes, Set<StateID<?>> destinations) {
+		this.routes = routes;
+		this.destinations = Collections.unmodifiableSet(destinations);
+	}
+
+	public InitRoutes<SingleDestination<?>> routes() {
+		return routes;
+	}
+
+	public Set<StateID<?>> destinations() {
+		return destinations;
+	}
+
+	public static GeneratedRoutes of(Shape shape, int size) {
+		switch (shape) {
+			case CHAIN:
+				return chain(size);
+			case FAN:
+				return fan(size);
+			case DIAMONDS:
+				return diamonds(size);
+		}
+		throw new IllegalArgumentException("unknown shape: " + shape);
+	}
+
+	public static StateID<Integer> stateOf(int index) {
+		return StateID.of("s" + index, Integer.class);
+	}
+
+	public static GeneratedRoutes chain(int size) {
+		Preconditions.checkArgument(size > 0, "size must be greater than 0: %s", size);
+		DependencyBuilder builder = InitRoutes.builder()
+				.state(stateOf(0)).isReachedBy(() -> State.of(0));
+		for (int i = 1; i < size; i++) {
+			builder.given(stateOf(i - 1)).state(stateOf(i)).isDerivedBy(v -> v + 1);
+		}
+		return new GeneratedRoutes(builder.build(), Collections.singleton(stateOf(size - 1)));
+	}
+
+	public static GeneratedRoutes fan(int size) {
+		Preconditions.checkArgument(size > 1, "size must be greater than 1: %s", size);
+		DependencyBuilder builder = InitRoutes.builder()
+				.state(stateOf(0)).isReachedBy(() -> State.of(0));
+		Set<StateID<?>> destinations = new LinkedHashSet<>();
+		for (int i = 1; i < size; i++) {
+			builder.given(stateOf(0)).state(stateOf(i)).isDerivedBy(v -> v + 1);
+			destinations.add(stateOf(i));
+		}
+		return new GeneratedRoutes(builder.build(), destinations);
+	}
+
+	public static GeneratedRoutes diamonds(int size) {
+		Preconditions.checkArgument(size > 0, "size must be greater than 0: %s", size);
+		DependencyBuilder builder = InitRoutes.builder()
+				.state(stateOf(0)).isReachedBy(() -> State.of(0));
+		int top = 0;
+		int next = 1;
+		while (next + 2 < size) {
+			StateID<Integer> left = stateOf(next);
+			StateID<Integer> right = stateOf(next + 1);
+			StateID<Integer> bottom = stateOf(next + 2);
+			builder.given(stateOf(top)).state(left).isDerivedBy(v -> v + 1);
+			builder.given(stateOf(top)).state(right).isDerivedBy(v -> v + 1);
+			builder.given(left, right).state(bottom).isDerivedBy((l, r) -> l + r);
+			top = next + 2;
+			next = next + 3;
+		}
+		return new GeneratedRoutes(builder.build(), Collections.singleton(stateOf(top)));
+	}
+
+	public static ProcessRoutes<SingleSource<?, ?>> process(int steps) {
+		Preconditions.checkArgument(steps > 0, "steps must be greater than 0: %s", steps);
+		ProcessRoutes.Builder builder = ProcessRoutes.builder()
+				.add(Start.of(stateOf(0)), () -> 0);
+		for (int i = 1; i < steps; i++) {
+			builder.add(Bridge.of(stateOf(i - 1), stateOf(i)), v -> v + 1);
+		}
+		return builder
+				.add(End.of(stateOf(steps - 1)), v -> {
+				})
+				.build();
+	}
+}
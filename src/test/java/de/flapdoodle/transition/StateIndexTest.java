@@ -0,0 +1,63 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class StateIndexTest {
+
+	@Test
+	public void ordinalsShouldFollowInsertionOrder() {
+		List<StateID<?>> states = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			states.add(stateOf(i));
+		}
+
+		StateIndex index = StateIndex.of(states);
+
+		assertEquals(100, index.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, index.ordinalOf(stateOf(i)));
+			assertEquals(states.get(i), index.stateOf(i));
+		}
+		assertEquals(-1, index.indexOf(StateID.of("s0", Integer.class)));
+		assertFalse(index.contains(StateID.of(String.class)));
+	}
+
+	@Test
+	public void duplicateStatesShouldFail() {
+		try {
+			StateIndex.of(Arrays.asList(StateID.of(String.class), StateID.of("", String.class)));
+			fail("exception expected");
+		}
+		catch (IllegalArgumentException ax) {
+			assertEquals("state StateID{name=, type=class java.lang.String} is not unique", ax.getMessage());
+		}
+	}
+
+	private static StateID<?> stateOf(int i) {
+		return i % 2 == 0 ? StateID.of("s" + i, String.class) : StateID.of("s" + i, Integer.class);
+	}
+}
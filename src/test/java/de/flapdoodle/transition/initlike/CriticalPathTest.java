@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.initlike;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import de.flapdoodle.transition.StateID;
+import de.flapdoodle.transition.routes.SingleDestination;
+
+public class CriticalPathTest {
+
+	private static final StateID<String> A = StateID.of("a", String.class);
+	private static final StateID<String> B = StateID.of("b", String.class);
+	private static final StateID<String> C = StateID.of("c", String.class);
+	private static final StateID<String> D = StateID.of("d", String.class);
+	private static final StateID<String> E = StateID.of("e", String.class);
+
+	@Test
+	public void longestChainShouldBeCritical() {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(A).isInitializedWith("a")
+				.state(B).isInitializedWith("b")
+				.given(A, B).state(C).isDerivedBy((a, b) -> a + b)
+				.given(C).state(D).isDerivedBy(c -> c + "d")
+				.state(E).isInitializedWith("e")
+				.build();
+
+		Map<StateID<?>, Duration> durations = new LinkedHashMap<>();
+		durations.put(A, Duration.ofMillis(100));
+		durations.put(B, Duration.ofMillis(30));
+		durations.put(C, Duration.ofMillis(50));
+		durations.put(D, Duration.ofMillis(10));
+		durations.put(E, Duration.ofMillis(20));
+
+		CriticalPath criticalPath = CriticalPath.of(routes, durations);
+
+		assertEquals(Arrays.asList(A, C, D), criticalPath.path());
+		assertEquals(Duration.ofMillis(160), criticalPath.minimumWallTime());
+		assertEquals(Duration.ZERO, criticalPath.slackOf(A));
+		assertEquals(Duration.ofMillis(70), criticalPath.slackOf(B));
+		assertEquals(Duration.ofMillis(100), criticalPath.earliestStartOf(C));
+		assertEquals(Duration.ofMillis(140), criticalPath.slackOf(E));
+
+		String text = criticalPath.asText();
+		assertTrue(text, text.startsWith("critical path: a:String -> c:String -> d:String\nminimum wall time: 160.0ms\n"));
+		assertTrue(text, text.contains("  b:String                       duration=30.0ms start=0.0ms slack=70.0ms"));
+
+		String dot = criticalPath.asDot("startup");
+		assertTrue(dot, dot.contains("red"));
+		assertTrue(dot, dot.contains("50.0ms (slack 0.0ms)"));
+	}
+
+	@Test
+	public void measuredTimingsShouldBeAnalyzed() {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(A).isInitializedWith("a")
+				.given(A).state(B).isDerivedBy(a -> a + "b")
+				.build();
+
+		TransitionTimings timings = TransitionTimings.create();
+		try (InitLike.Init<String> state = InitLike.with(routes).init(B, timings)) {
+			assertEquals("ab", state.current());
+		}
+
+		CriticalPath criticalPath = CriticalPath.of(routes, timings);
+		assertEquals(Arrays.asList(A, B), criticalPath.path());
+		assertEquals(criticalPath.durationOf(A).plus(criticalPath.durationOf(B)), criticalPath.minimumWallTime());
+	}
+}
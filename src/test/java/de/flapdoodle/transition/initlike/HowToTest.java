@@ -24,6 +24,9 @@ import static org.junit.Assert.assertTrue;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.junit.Before;
 import org.junit.ClassRule;
@@ -286,6 +289,54 @@ public class HowToTest {
 		recording.end();
 	}
 
+	@Test
+	public void parallelInitShouldWork() {
+		recording.begin();
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(StateID.of("hello", String.class)).isInitializedWith("hello")
+				.state(StateID.of("world", String.class)).isInitializedWith("world")
+				.given(StateID.of("hello", String.class), StateID.of("world", String.class)).state(String.class)
+				.isDerivedBy((a, b) -> a + " " + b)
+				.build();
+
+		ExecutorService executor = Executors.newCachedThreadPool();
+
+		InitLike init = InitLike.with(routes).parallel(executor);
+
+		try (InitLike.Init<String> state = init.init(StateID.of(String.class))) {
+
+			assertEquals("hello world", state.current());
+
+		}
+
+		executor.shutdown();
+		recording.end();
+	}
+
+	@Test
+	public void asyncTransitionShouldWork() {
+		recording.begin();
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(StateID.of("hello", String.class))
+				.isReachedByAsync(() -> CompletableFuture.supplyAsync(() -> State.of("hello", tearDownListener())))
+				.given(StateID.of("hello", String.class)).state(String.class)
+				.isReachedByAsync(s -> CompletableFuture.supplyAsync(() -> State.of(s + " world", tearDownListener())))
+				.build();
+
+		ExecutorService executor = Executors.newCachedThreadPool();
+
+		InitLike init = InitLike.with(routes).parallel(executor);
+
+		try (InitLike.Init<String> state = init.init(StateID.of(String.class))) {
+
+			assertEquals("hello world", state.current());
+
+		}
+
+		executor.shutdown();
+		recording.end();
+	}
+
 	@Test
 	public void initAsStateShouldWork() {
 		recording.begin();
@@ -17,20 +17,43 @@
 package de.flapdoodle.transition.initlike;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import de.flapdoodle.transition.GeneratedRoutes;
 import de.flapdoodle.transition.StateID;
 import de.flapdoodle.transition.TearDownCounter;
+import de.flapdoodle.transition.initlike.resolver.StateOfNamedType;
+import de.flapdoodle.transition.initlike.resolver.TransitionResolver;
+import de.flapdoodle.transition.initlike.transitions.BridgeTransition;
+import de.flapdoodle.transition.initlike.transitions.StartTransition;
 import de.flapdoodle.transition.routes.Bridge;
 import de.flapdoodle.transition.routes.Merge3Junction;
 import de.flapdoodle.transition.routes.MergingJunction;
+import de.flapdoodle.transition.routes.Route.Transition;
 import de.flapdoodle.transition.routes.SingleDestination;
 import de.flapdoodle.transition.routes.Start;
 
@@ -48,7 +71,7 @@ public class InitLikeTest {
 	}
 
 	private void assertTearDowns(String... tearDowns) {
-		tearDownCounter.assertTearDownsOrder(tearDowns);
+		tearDownCounter.assertTearDownsOrder((Object[]) tearDowns);
 	}
 
 	@Test
@@ -304,6 +327,925 @@ public class InitLikeTest {
 				"error on transition to NamedType(String), rollback");
 	}
 
+	@Test
+	public void loopsShouldFail() {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of("start", String.class)), () -> State.of("start"))
+				.add(Bridge.of(StateID.of("a", String.class), StateID.of("b", String.class)), s -> State.of(s))
+				.add(Bridge.of(StateID.of("b", String.class), StateID.of("a", String.class)), s -> State.of(s))
+				.build();
+
+		try {
+			InitLike.with(routes);
+			fail("exception expected");
+		}
+		catch (IllegalArgumentException iax) {
+			assertTrue(iax.getLocalizedMessage(), Arrays.asList(
+					"loops are not supported: NamedType(a:String)->NamedType(b:String)",
+					"loops are not supported: NamedType(b:String)->NamedType(a:String)")
+					.contains(iax.getLocalizedMessage()));
+		}
+	}
+
+	@Test
+	public void dependenciesShouldContainAllTransitiveSources() {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of("hello", String.class)), () -> State.of("hello"))
+				.add(Start.of(StateID.of("again", String.class)), () -> State.of("again"))
+				.add(Bridge.of(StateID.of("hello", String.class), StateID.of("bridge", String.class)),
+						s -> State.of("[" + s + "]"))
+				.add(
+						MergingJunction.of(StateID.of("bridge", String.class), StateID.of("again", String.class),
+								StateID.of("merge", String.class)),
+						(a, b) -> State.of(a + " " + b))
+				.build();
+
+		InitLike init = InitLike.with(routes);
+
+		assertEquals(StateID.setOf(), init.dependenciesOf(StateID.of("hello", String.class)));
+		assertEquals(StateID.setOf(StateID.of("hello", String.class)), init.dependenciesOf(StateID.of("bridge", String.class)));
+		assertEquals(StateID.setOf(StateID.of("hello", String.class), StateID.of("bridge", String.class), StateID.of("again", String.class)),
+				init.dependenciesOf(StateID.of("merge", String.class)));
+
+		assertException(() -> init.dependenciesOf(StateID.of("foo", String.class)), IllegalArgumentException.class,
+				"state NamedType(foo:String) is not part of this init process");
+	}
+
+	@Test
+	public void additionalResolverShouldBeUsedBeforeDefaults() {
+		List<String> resolved = new ArrayList<>();
+
+		TransitionResolver countingStartResolver = new TransitionResolver() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public <T> Optional<Function<StateOfNamedType, State<T>>> resolve(SingleDestination<T> route, Transition<T> transition) {
+				if (route instanceof Start && transition instanceof StartTransition) {
+					return Optional.of(stateOfType -> {
+						resolved.add(route.destination().name());
+						return ((StartTransition<T>) transition).get();
+					});
+				}
+				return Optional.empty();
+			}
+		};
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of("a", String.class)), () -> State.of("hello", tearDownListener()))
+				.add(Bridge.of(StateID.of("a", String.class), StateID.of("b", String.class)),
+						s -> State.of(s + " world", tearDownListener()))
+				.build();
+
+		InitLike init = InitLike.with(routes, Arrays.asList(countingStartResolver));
+
+		try (InitLike.Init<String> state = init.init(StateID.of("b", String.class))) {
+			assertEquals("hello world", state.current());
+		}
+
+		assertEquals("[a]", resolved.toString());
+		assertTearDowns("hello world", "hello");
+	}
+
+	@Test
+	public void repeatedInitShouldCallTransitionsAgain() {
+		AtomicInteger counter = new AtomicInteger();
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of(String.class)), () -> State.of("hello" + counter.incrementAndGet(), tearDownListener()))
+				.add(Bridge.of(StateID.of(String.class), StateID.of("bridge", String.class)),
+						s -> State.of(s + " world", tearDownListener()))
+				.build();
+
+		InitLike init = InitLike.with(routes);
+
+		try (InitLike.Init<String> state = init.init(StateID.of("bridge", String.class))) {
+			assertEquals("hello1 world", state.current());
+		}
+
+		try (InitLike.Init<String> state = init.init(StateID.of("bridge", String.class))) {
+			assertEquals("hello2 world", state.current());
+		}
+
+		assertTearDowns("hello1 world", "hello1", "hello2 world", "hello2");
+	}
+
+	@Test
+	public void parallelInitShouldStartIndependentStatesAtTheSameTime() {
+		CountDownLatch bothStarted = new CountDownLatch(2);
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of("a", String.class)), () -> State.of(waitFor(bothStarted, "hello"), tearDownListener()))
+				.add(Start.of(StateID.of("b", String.class)), () -> State.of(waitFor(bothStarted, "world"), tearDownListener()))
+				.add(
+						MergingJunction.of(StateID.of("a", String.class), StateID.of("b", String.class),
+								StateID.of(String.class)),
+						(a, b) -> State.of(a + " " + b, tearDownListener()))
+				.build();
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			InitLike init = InitLike.with(routes).parallel(executor);
+			List<String> reached = new ArrayList<>();
+			InitListener listener = InitListener.builder()
+					.onStateReached((type, value) -> reached.add(type.name()))
+					.build();
+
+			try (InitLike.Init<String> state = init.init(StateID.of(String.class), listener)) {
+				assertEquals("hello world", state.current());
+			}
+
+			assertEquals("[a, b, ]", reached.toString());
+			assertTearDowns("hello world", "hello", "world");
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void sequentialInitShouldRollbackReachedStatesInReverseOrder() {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of("a", String.class)), () -> State.of("hello", tearDownListener()))
+				.add(Bridge.of(StateID.of("a", String.class), StateID.of("b", String.class)), a -> State.of("world", tearDownListener()))
+				.add(Bridge.of(StateID.of("a", String.class), StateID.of("c", String.class)), a -> {
+					throw new RuntimeException("--error in transition--");
+				})
+				.add(
+						MergingJunction.of(StateID.of("b", String.class), StateID.of("c", String.class), StateID.of(String.class)),
+						(b, c) -> State.of(b + " " + c, tearDownListener()))
+				.build();
+
+		InitLike init = InitLike.with(routes);
+
+		assertException(() -> init.init(StateID.of(String.class)), RuntimeException.class,
+				"error on transition to NamedType(b:String), NamedType(c:String), rollback");
+
+		assertTearDowns("world", "hello");
+	}
+
+	@Test
+	public void parallelInitShouldRollbackAllStatesOfFailedLevel() {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of("a", String.class)), () -> State.of("hello", tearDownListener()))
+				.add(Start.of(StateID.of("b", String.class)), () -> {
+					throw new RuntimeException("--error in transition--");
+				})
+				.add(Start.of(StateID.of("c", String.class)), () -> State.of("again", tearDownListener()))
+				.add(
+						Merge3Junction.of(StateID.of("a", String.class), StateID.of("b", String.class), StateID.of("c", String.class),
+								StateID.of(String.class)),
+						(a, b, c) -> State.of(a + " " + b + " " + c, tearDownListener()))
+				.build();
+
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			InitLike init = InitLike.with(routes).parallel(executor);
+
+			assertException(() -> init.init(StateID.of(String.class)), RuntimeException.class,
+					"error on transition to NamedType(a:String), NamedType(b:String), NamedType(c:String), rollback");
+
+			assertTearDowns("hello", "again");
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void threadPerTransitionShouldStartIndependentStatesAtTheSameTime() {
+		CountDownLatch allStarted = new CountDownLatch(3);
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of("a", String.class)), () -> State.of(waitFor(allStarted, "a"), tearDownListener()))
+				.add(Start.of(StateID.of("b", String.class)), () -> State.of(waitFor(allStarted, "b"), tearDownListener()))
+				.add(Start.of(StateID.of("c", String.class)), () -> State.of(waitFor(allStarted, "c"), tearDownListener()))
+				.add(
+						Merge3Junction.of(StateID.of("a", String.class), StateID.of("b", String.class), StateID.of("c", String.class),
+								StateID.of(String.class)),
+						(a, b, c) -> State.of(a + b + c, tearDownListener()))
+				.build();
+
+		try (InitLike.Init<String> state = InitLike.with(routes).threadPerTransition().init(StateID.of(String.class))) {
+			assertEquals("abc", state.current());
+		}
+
+		assertTearDowns("abc", "a", "b", "c");
+	}
+
+	@Test(timeout = 30000)
+	public void threadPerTransitionShouldNotStarveOnNestedInits() {
+		int levels = Runtime.getRuntime().availableProcessors() * 4 + 32;
+
+		try (InitLike.Init<Integer> state = nestedInit(levels)) {
+			assertEquals(Integer.valueOf(levels), state.current());
+		}
+	}
+
+	@Test
+	public void parallelTearDownShouldStopIndependentStatesAtTheSameTime() {
+		CountDownLatch bothStopping = new CountDownLatch(2);
+		List<String> stopped = Collections.synchronizedList(new ArrayList<>());
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of("a", String.class)), () -> State.of("a", value -> stopped.add(waitFor(bothStopping, value))))
+				.add(Start.of(StateID.of("b", String.class)), () -> State.of("b", value -> stopped.add(waitFor(bothStopping, value))))
+				.add(
+						MergingJunction.of(StateID.of("a", String.class), StateID.of("b", String.class), StateID.of(String.class)),
+						(a, b) -> State.of(a + b, tearDownListener()))
+				.build();
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			InitLike init = InitLike.with(routes).parallelTearDown(executor);
+			List<String> tornDown = new ArrayList<>();
+			InitListener listener = InitListener.builder()
+					.onTearDown((type, value) -> tornDown.add(type.name()))
+					.build();
+
+			try (InitLike.Init<String> state = init.init(StateID.of(String.class), listener)) {
+				assertEquals("ab", state.current());
+			}
+
+			assertEquals("[, a, b]", tornDown.toString());
+			assertEquals(2, stopped.size());
+			assertTearDowns("ab");
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void asyncInitShouldNotBlockCaller() throws InterruptedException, ExecutionException {
+		CountDownLatch startAllowed = new CountDownLatch(1);
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of(String.class)), () -> State.of(await(startAllowed, "hello"), tearDownListener()))
+				.add(Bridge.of(StateID.of(String.class), StateID.of("bridge", String.class)),
+						s -> State.of(s + " world", tearDownListener()))
+				.build();
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			InitLike init = InitLike.with(routes);
+
+			CompletableFuture<InitLike.Init<String>> pending = init.initAsync(StateID.of(String.class), executor).toCompletableFuture();
+			assertFalse(pending.isDone());
+			startAllowed.countDown();
+
+			InitLike.Init<String> state = pending.get();
+			assertEquals("hello", state.current());
+
+			InitLike.Init<String> subState = state.initAsync(StateID.of("bridge", String.class), executor).toCompletableFuture().get();
+			assertEquals("hello world", subState.current());
+
+			subState.closeAsync(executor).toCompletableFuture().get();
+			assertTearDowns("hello world");
+
+			state.closeAsync(executor).toCompletableFuture().get();
+			assertTearDowns("hello world", "hello");
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void closeAsyncWithoutExecutorShouldNotUseCommonPool() throws InterruptedException, ExecutionException {
+		List<String> tearDownThreads = Collections.synchronizedList(new ArrayList<>());
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(String.class).isReachedBy(() -> State.of("hello", value -> tearDownThreads.add(Thread.currentThread().getName())))
+				.build();
+
+		InitLike.Init<String> state = InitLike.with(routes).init(StateID.of(String.class));
+		state.closeAsync().toCompletableFuture().get();
+
+		assertEquals(1, tearDownThreads.size());
+		assertFalse(tearDownThreads.get(0), tearDownThreads.get(0).startsWith("ForkJoinPool.commonPool"));
+	}
+
+	@Test
+	public void asyncInitShouldRollbackOnError() throws InterruptedException {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of(String.class)), () -> State.of("hello", tearDownListener()))
+				.add(Bridge.of(StateID.of(String.class), StateID.of("bridge", String.class)), s -> {
+					throw new RuntimeException("--error in transition--");
+				})
+				.build();
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			InitLike init = InitLike.with(routes);
+
+			try {
+				init.initAsync(StateID.of("bridge", String.class), executor).toCompletableFuture().get();
+				fail("exception expected");
+			}
+			catch (ExecutionException ex) {
+				assertEquals("error on transition to NamedType(bridge:String), rollback", ex.getCause().getMessage());
+			}
+
+			assertTearDowns("hello");
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void asyncTransitionsShouldNotOccupyExecutorThreads() {
+		List<CompletableFuture<State<String>>> pending = new ArrayList<>();
+		CountDownLatch allStarted = new CountDownLatch(2);
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.addAsync(Start.of(StateID.of("a", String.class)), () -> started(pending, allStarted))
+				.addAsync(Start.of(StateID.of("b", String.class)), () -> started(pending, allStarted))
+				.addAsync(
+						MergingJunction.of(StateID.of("a", String.class), StateID.of("b", String.class),
+								StateID.of(String.class)),
+						(a, b) -> CompletableFuture.completedFuture(State.of(a + " " + b, tearDownListener())))
+				.build();
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			InitLike init = InitLike.with(routes).parallel(executor);
+
+			CompletableFuture<InitLike.Init<String>> result = init.initAsync(StateID.of(String.class), executor).toCompletableFuture();
+			await(allStarted, "");
+			synchronized (pending) {
+				for (int i = 0; i < pending.size(); i++) {
+					pending.get(i).complete(State.of(i == 0 ? "hello" : "world", tearDownListener()));
+				}
+			}
+
+			try (InitLike.Init<String> state = result.join()) {
+				assertEquals("hello world", state.current());
+			}
+			assertTearDowns("hello world", "hello", "world");
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void asyncTransitionShouldBeJoinedInSequentialInit() {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of(String.class)), () -> State.of("hello", tearDownListener()))
+				.addAsync(Bridge.of(StateID.of(String.class), StateID.of("bridge", String.class)),
+						s -> CompletableFuture.supplyAsync(() -> State.of(s + " world", tearDownListener())))
+				.build();
+
+		InitLike init = InitLike.with(routes);
+
+		try (InitLike.Init<String> state = init.init(StateID.of("bridge", String.class))) {
+			assertEquals("hello world", state.current());
+		}
+
+		assertTearDowns("hello world", "hello");
+	}
+
+	private static CompletableFuture<State<String>> started(List<CompletableFuture<State<String>>> pending, CountDownLatch allStarted) {
+		CompletableFuture<State<String>> ret = new CompletableFuture<>();
+		synchronized (pending) {
+			pending.add(ret);
+		}
+		allStarted.countDown();
+		return ret;
+	}
+
+	@Test
+	public void multipleDestinationsShouldShareDependencies() {
+		AtomicInteger baseCalls = new AtomicInteger();
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of(String.class)), () -> {
+					baseCalls.incrementAndGet();
+					return State.of("hello", tearDownListener());
+				})
+				.add(Bridge.of(StateID.of(String.class), StateID.of("a", String.class)), s -> State.of(s + " a", tearDownListener()))
+				.add(Bridge.of(StateID.of(String.class), StateID.of("b", String.class)), s -> State.of(s + " b", tearDownListener()))
+				.add(Bridge.of(StateID.of("b", String.class), StateID.of("c", String.class)), s -> State.of(s + " c", tearDownListener()))
+				.build();
+
+		InitLike init = InitLike.with(routes);
+
+		Set<StateID<?>> destinations = StateID.setOf(StateID.of("a", String.class), StateID.of("c", String.class));
+		try (InitLike.Inits state = init.init(destinations)) {
+			assertEquals(destinations, state.destinations());
+			assertEquals("hello a", state.current(StateID.of("a", String.class)));
+			assertEquals("hello b c", state.current(StateID.of("c", String.class)));
+
+			assertException(() -> state.init(StateID.of("b", String.class)), IllegalArgumentException.class,
+					"state NamedType(b:String) already initialized");
+		}
+
+		assertEquals(1, baseCalls.get());
+		assertTearDowns("hello b c", "hello a", "hello b", "hello");
+	}
+
+	@Test
+	public void multipleDestinationsShouldStartConesInParallel() {
+		CountDownLatch bothStarted = new CountDownLatch(2);
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of("a", String.class)), () -> State.of(waitFor(bothStarted, "a"), tearDownListener()))
+				.add(Start.of(StateID.of("b", String.class)), () -> State.of(waitFor(bothStarted, "b"), tearDownListener()))
+				.build();
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			InitLike init = InitLike.with(routes).parallel(executor);
+
+			try (InitLike.Inits state = init.init(StateID.setOf(StateID.of("a", String.class), StateID.of("b", String.class)))) {
+				assertEquals("a", state.current(StateID.of("a", String.class)));
+				assertEquals("b", state.current(StateID.of("b", String.class)));
+			}
+
+			assertTearDowns("a", "b");
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void sharedStateShouldBeStartedOnceAndStoppedWithLastHandle() throws InterruptedException, ExecutionException {
+		AtomicInteger starts = new AtomicInteger();
+		CountDownLatch startAllowed = new CountDownLatch(1);
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(StateID.of("db", String.class)).shared()
+				.isReachedBy(() -> State.of(await(startAllowed, "db" + starts.incrementAndGet()), tearDownListener()))
+				.given(StateID.of("db", String.class)).state(String.class)
+				.isReachedBy(db -> State.of("client of " + db, value -> {}))
+				.build();
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			InitLike init = InitLike.with(routes);
+
+			CompletableFuture<InitLike.Init<String>> first = init.initAsync(StateID.of(String.class), executor).toCompletableFuture();
+			CompletableFuture<InitLike.Init<String>> second = init.initAsync(StateID.of(String.class), executor).toCompletableFuture();
+			startAllowed.countDown();
+
+			InitLike.Init<String> firstState = first.get();
+			InitLike.Init<String> secondState = second.get();
+			assertEquals("client of db1", firstState.current());
+			assertEquals("client of db1", secondState.current());
+			assertEquals(1, starts.get());
+
+			firstState.close();
+			assertTearDowns();
+
+			secondState.close();
+			assertTearDowns("db1");
+
+			try (InitLike.Init<String> state = init.init(StateID.of(String.class))) {
+				assertEquals("client of db2", state.current());
+			}
+			assertTearDowns("db1", "db2");
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void sharedStateShouldOnlyNotifyTearDownOfLastRelease() {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(StateID.of("db", String.class)).shared()
+				.isReachedBy(() -> State.of("db", tearDownListener()))
+				.build();
+
+		List<String> tornDown = new ArrayList<>();
+		InitListener listener = InitListener.builder()
+				.onStateReached((type, value) -> {})
+				.onTearDown((type, value) -> tornDown.add(value.toString()))
+				.build();
+
+		InitLike init = InitLike.with(routes);
+
+		InitLike.Init<String> first = init.init(StateID.of("db", String.class), listener);
+		InitLike.Init<String> second = init.init(StateID.of("db", String.class), listener);
+
+		first.close();
+		assertEquals("[]", tornDown.toString());
+		assertTearDowns();
+
+		second.close();
+		assertEquals("[db]", tornDown.toString());
+		assertTearDowns("db");
+	}
+
+	@Test
+	public void sharedStateShouldNotBeAbortedByDeadlineOfFirstRequester() throws InterruptedException, ExecutionException {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch startAllowed = new CountDownLatch(1);
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(StateID.of("db", String.class)).shared()
+				.isReachedBy(() -> {
+					started.countDown();
+					return State.of(await(startAllowed, "db"), tearDownListener());
+				})
+				.build();
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			InitLike init = InitLike.with(routes);
+
+			CompletableFuture<InitLike.Init<String>> first = init
+					.initAsync(StateID.of("db", String.class), executor, Deadline.after(Duration.ofMillis(100)))
+					.toCompletableFuture();
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+			CompletableFuture<InitLike.Init<String>> second = init.initAsync(StateID.of("db", String.class), executor)
+					.toCompletableFuture();
+
+			sleep(300, "");
+			startAllowed.countDown();
+
+			try (InitLike.Init<String> state = second.get()) {
+				assertEquals("db", state.current());
+			}
+			try {
+				first.get();
+				fail("exception expected");
+			}
+			catch (ExecutionException ex) {
+				assertEquals("error on transition to NamedType(db:String), rollback", ex.getCause().getMessage());
+				assertEquals(DeadlineExceededException.class, ex.getCause().getCause().getClass());
+			}
+			assertTearDowns("db");
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void sharedStateMustNotDependOnUnsharedState() {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(String.class).isInitializedWith("hello")
+				.given(String.class).state(StateID.of("shared", String.class)).shared()
+				.isDerivedBy(s -> s + " world")
+				.build();
+
+		assertException(() -> InitLike.with(routes), IllegalArgumentException.class,
+				"shared state NamedType(shared:String) depends on not shared state NamedType(String)");
+	}
+
+	@Test
+	public void reInitShouldOnlyRestartStatesAffectedByChangedRoutes() {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of("a", String.class)), () -> State.of("a", tearDownListener()))
+				.add(Start.of(StateID.of("b", String.class)), () -> State.of("b", tearDownListener()))
+				.add(Bridge.of(StateID.of("b", String.class), StateID.of("c", String.class)), b -> State.of(b + "c", tearDownListener()))
+				.add(MergingJunction.of(StateID.of("a", String.class), StateID.of("c", String.class), StateID.of("d", String.class)),
+						(a, c) -> State.of(a + c + "d", tearDownListener()))
+				.build();
+
+		InitRoutes<SingleDestination<?>> changedRoutes = InitRoutes.rawBuilder()
+				.addAll(routes)
+				.replace(Bridge.of(StateID.of("b", String.class), StateID.of("c", String.class)), b -> State.of(b + "C", tearDownListener()))
+				.build();
+
+		InitLike.Init<String> running = InitLike.with(routes).init(StateID.of("d", String.class));
+		assertEquals("abcd", running.current());
+
+		try (InitLike.Init<String> state = InitLike.with(changedRoutes).reInit(running)) {
+			assertTearDowns("abcd", "bc");
+			assertEquals("abCd", state.current());
+			running.close();
+			assertTearDowns("abcd", "bc");
+		}
+		assertTearDowns("abcd", "bc", "abCd", "bC", "a", "b");
+	}
+
+	@Test
+	public void reInitWithRebuiltRoutesShouldRestartNothing() {
+		AtomicInteger starts = new AtomicInteger();
+		Supplier<InitRoutes<SingleDestination<?>>> routes = () -> InitRoutes.builder()
+				.state(String.class).isReachedBy(() -> State.of("hello " + starts.incrementAndGet(), tearDownListener()))
+				.given(String.class).state(StateID.of("bridge", String.class))
+				.isReachedBy(s -> State.of(s + " world", tearDownListener()))
+				.build();
+
+		InitLike.Init<String> running = InitLike.with(routes.get()).init(StateID.of("bridge", String.class));
+
+		try (InitLike.Init<String> state = InitLike.with(routes.get()).reInit(running)) {
+			assertEquals("hello 1 world", state.current());
+			assertEquals(1, starts.get());
+			assertTearDowns();
+		}
+		assertTearDowns("hello 1 world", "hello 1");
+	}
+
+	@Test
+	public void generatedRoutesShouldInitAndTearDown() {
+		for (GeneratedRoutes.Shape shape : GeneratedRoutes.Shape.values()) {
+			GeneratedRoutes generated = GeneratedRoutes.of(shape, 1000);
+			List<StateID<?>> tornDown = new ArrayList<>();
+			InitListener listener = InitListener.of((id, value) -> {}, (id, value) -> tornDown.add(id));
+
+			try (InitLike.Inits state = InitLike.with(generated.routes()).init(generated.destinations(), listener)) {
+				generated.destinations().forEach(destination -> assertTrue(state.current(destination) instanceof Integer));
+			}
+			assertEquals(shape.toString(), generated.routes().all().size(), tornDown.size());
+		}
+	}
+
+	@Test
+	public void lazyStateShouldOnlyBeStartedOnFirstAccess() {
+		AtomicBoolean useCache = new AtomicBoolean(false);
+
+		TransitionResolver optionalCacheResolver = new TransitionResolver() {
+			@Override
+			@SuppressWarnings("unchecked")
+			public <T> Optional<Function<StateOfNamedType, State<T>>> resolve(SingleDestination<T> route, Transition<T> transition) {
+				if (route instanceof Bridge && route.destination().name().equals("app")) {
+					StateID<String> source = ((Bridge<String, T>) route).start();
+					return Optional.of(stateOfType -> ((BridgeTransition<String, T>) transition)
+							.apply(useCache.get() ? stateOfType.of(source) : "no cache"));
+				}
+				return Optional.empty();
+			}
+		};
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(StateID.of("dir", String.class)).isReachedBy(() -> State.of("dir", tearDownListener()))
+				.given(StateID.of("dir", String.class)).state(StateID.of("cache", String.class)).lazy()
+				.isReachedBy(dir -> State.of("cache in " + dir, tearDownListener()))
+				.given(StateID.of("cache", String.class)).state(StateID.of("app", String.class))
+				.isReachedBy(cache -> State.of("app with " + cache, tearDownListener()))
+				.build();
+
+		InitLike init = InitLike.with(routes, Arrays.asList(optionalCacheResolver));
+
+		try (InitLike.Init<String> state = init.init(StateID.of("app", String.class))) {
+			assertEquals("app with no cache", state.current());
+		}
+		assertTearDowns("app with no cache");
+
+		useCache.set(true);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			List<String> reached = new ArrayList<>();
+			InitListener listener = InitListener.builder()
+					.onStateReached((id, value) -> reached.add(id.name()))
+					.onTearDown((id, value) -> {})
+					.build();
+			try (InitLike.Init<String> state = init.parallel(executor).init(StateID.of("app", String.class), listener)) {
+				assertEquals("app with cache in dir", state.current());
+			}
+			assertEquals("[dir, cache, app]", reached.toString());
+			assertTearDowns("app with no cache", "app with cache in dir", "cache in dir", "dir");
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void lazyStateShouldOnlyBeStartedIfDeferredSourceIsRead() {
+		AtomicBoolean useCache = new AtomicBoolean(false);
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(StateID.of("dir", String.class)).isReachedBy(() -> State.of("dir", tearDownListener()))
+				.given(StateID.of("dir", String.class)).state(StateID.of("cache", String.class)).lazy()
+				.isReachedBy(dir -> State.of("cache in " + dir, tearDownListener()))
+				.given(StateID.of("cache", String.class)).state(StateID.of("app", String.class))
+				.isReachedByDeferred(cache -> State.of("app with " + (useCache.get() ? cache.get() : "no cache"), tearDownListener()))
+				.build();
+
+		InitLike init = InitLike.with(routes);
+
+		try (InitLike.Init<String> state = init.init(StateID.of("app", String.class))) {
+			assertEquals("app with no cache", state.current());
+		}
+		assertTearDowns("app with no cache");
+
+		useCache.set(true);
+		try (InitLike.Init<String> state = init.init(StateID.of("app", String.class))) {
+			assertEquals("app with cache in dir", state.current());
+		}
+		assertTearDowns("app with no cache", "app with cache in dir", "cache in dir", "dir");
+	}
+
+	@Test
+	public void deadlineShouldInterruptTransitionAndRollback() {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of(String.class)), () -> State.of("hello", tearDownListener()))
+				.add(Bridge.of(StateID.of(String.class), StateID.of("bridge", String.class)),
+						s -> State.of(sleep(10000, s + " world"), tearDownListener()))
+				.build();
+
+		InitLike init = InitLike.with(routes);
+
+		try {
+			init.init(StateID.of("bridge", String.class), Deadline.after(Duration.ofMillis(100)));
+			fail("exception expected");
+		}
+		catch (RuntimeException rx) {
+			assertEquals("error on transition to NamedType(bridge:String), rollback", rx.getMessage());
+			assertEquals(DeadlineExceededException.class, rx.getCause().getClass());
+		}
+
+		assertTearDowns("hello");
+	}
+
+	@Test
+	public void routeTimeoutShouldInterruptTransition() {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(String.class).isReachedBy(() -> State.of("hello", tearDownListener()))
+				.given(String.class).state(StateID.of("bridge", String.class))
+				.timeout(Duration.ofMillis(100))
+				.isReachedBy(s -> State.of(sleep(10000, s + " world"), tearDownListener()))
+				.build();
+
+		InitLike init = InitLike.with(routes);
+
+		try {
+			init.init(StateID.of("bridge", String.class));
+			fail("exception expected");
+		}
+		catch (RuntimeException rx) {
+			assertEquals("timeout after PT0.1S", rx.getCause().getMessage());
+		}
+
+		assertTearDowns("hello");
+	}
+
+	@Test
+	public void cancelShouldStopRunningInit() throws InterruptedException {
+		CountDownLatch started = new CountDownLatch(2);
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of("a", String.class)), () -> {
+					started.countDown();
+					return State.of("a", tearDownListener());
+				})
+				.add(Start.of(StateID.of("b", String.class)), () -> {
+					started.countDown();
+					return State.of(sleep(10000, "b"), tearDownListener());
+				})
+				.add(
+						MergingJunction.of(StateID.of("a", String.class), StateID.of("b", String.class), StateID.of(String.class)),
+						(a, b) -> State.of(a + b, tearDownListener()))
+				.build();
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			InitLike init = InitLike.with(routes).parallel(executor);
+			Deadline deadline = Deadline.none();
+
+			CompletableFuture<InitLike.Init<String>> pending = init.initAsync(StateID.of(String.class), executor, deadline).toCompletableFuture();
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+			deadline.cancel();
+
+			try {
+				pending.get();
+				fail("exception expected");
+			}
+			catch (ExecutionException ex) {
+				assertEquals(CancellationException.class, ex.getCause().getCause().getClass());
+			}
+
+			assertTearDowns("a");
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void closeShouldStopWaitingForTearDownAfterTimeout() {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(Start.of(StateID.of(String.class)), () -> State.of("hello", tearDownListener()))
+				.add(Bridge.of(StateID.of(String.class), StateID.of("bridge", String.class)),
+						s -> State.of(s + " world", value -> sleep(10000, value)))
+				.build();
+
+		InitLike init = InitLike.with(routes);
+
+		InitLike.Init<String> state = init.init(StateID.of("bridge", String.class));
+		try {
+			state.close(Duration.ofMillis(100));
+			fail("exception expected");
+		}
+		catch (TearDownException tx) {
+			assertEquals(2, tx.getExceptions().size());
+			assertEquals("timeout after PT0.1S", tx.getExceptions().get(0).getMessage());
+			assertEquals("timeout after PT0.1S", tx.getExceptions().get(1).getMessage());
+		}
+
+		assertTearDowns("hello");
+	}
+
+	@Test
+	public void closeTimeoutShouldBoundAllTearDownsTogether() {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(StateID.of("a", String.class)).isReachedBy(() -> State.of("a", value -> sleep(10000, value)))
+				.state(StateID.of("b", String.class)).isReachedBy(() -> State.of("b", value -> sleep(10000, value)))
+				.state(StateID.of("c", String.class)).isReachedBy(() -> State.of("c", value -> sleep(10000, value)))
+				.state(StateID.of("d", String.class)).isReachedBy(() -> State.of("d", value -> sleep(10000, value)))
+				.build();
+
+		InitLike init = InitLike.with(routes);
+
+		InitLike.Inits state = init.init(StateID.setOf(StateID.of("a", String.class), StateID.of("b", String.class),
+				StateID.of("c", String.class), StateID.of("d", String.class)));
+		long startedAt = System.nanoTime();
+		try {
+			state.close(Duration.ofMillis(200));
+			fail("exception expected");
+		}
+		catch (TearDownException tx) {
+			assertEquals(4, tx.getExceptions().size());
+			tx.getExceptions().forEach(ex -> assertEquals("timeout after PT0.2S", ex.getMessage()));
+		}
+		long elapsed = Duration.ofNanos(System.nanoTime() - startedAt).toMillis();
+		assertTrue("close took " + elapsed + "ms", elapsed < 600);
+	}
+
+	@Test
+	public void lateResultOfTransitionShouldBeRejectedAndTornDown() {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(String.class).isReachedBy(() -> State.of("hello", tearDownListener()))
+				.given(String.class).state(StateID.of("bridge", String.class))
+				.timeout(Duration.ofMillis(100))
+				.isReachedBy(s -> State.of(sleepUninterruptibly(300, s + " world"), tearDownListener()))
+				.build();
+
+		InitLike init = InitLike.with(routes);
+
+		try {
+			init.init(StateID.of("bridge", String.class));
+			fail("exception expected");
+		}
+		catch (RuntimeException rx) {
+			assertEquals("timeout after PT0.1S", rx.getCause().getMessage());
+		}
+
+		assertTearDowns("hello world", "hello");
+	}
+
+	private static InitLike.Init<Integer> nestedInit(int level) {
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(Integer.class).isReachedBy(() -> {
+					if (level == 0) {
+						return State.of(0);
+					}
+					try (InitLike.Init<Integer> nested = nestedInit(level - 1)) {
+						return State.of(nested.current() + 1);
+					}
+				})
+				.build();
+
+		return InitLike.with(routes).threadPerTransition().init(StateID.of(Integer.class));
+	}
+
+	private static String sleepUninterruptibly(long millis, String value) {
+		long until = System.currentTimeMillis() + millis;
+		while (System.currentTimeMillis() < until) {
+			try {
+				Thread.sleep(Math.max(1, until - System.currentTimeMillis()));
+			}
+			catch (InterruptedException ix) {
+				// swallowed on purpose
+			}
+		}
+		return value;
+	}
+
+	private static String sleep(long millis, String value) {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException ix) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(ix);
+		}
+		return value;
+	}
+
+	private static String waitFor(CountDownLatch latch, String value) {
+		latch.countDown();
+		return await(latch, value);
+	}
+
+	private static String await(CountDownLatch latch, String value) {
+		try {
+			if (!latch.await(10, TimeUnit.SECONDS)) {
+				throw new RuntimeException("timeout waiting for other transitions");
+			}
+		}
+		catch (InterruptedException ix) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(ix);
+		}
+		return value;
+	}
+
 	private static void assertException(Supplier<?> supplier, Class<?> exceptionClass, String message) {
 		try {
 			supplier.get();
@@ -17,12 +17,18 @@
 package de.flapdoodle.transition.initlike;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 
 import de.flapdoodle.transition.StateID;
+import de.flapdoodle.transition.routes.SingleDestination;
 
 public class InitListenerTest {
 
@@ -41,4 +47,112 @@ public class InitListenerTest {
 		listener.onStateTearDown(NamedTypeAndValue.of(StateID.of(String.class), "world"));
 		assertEquals("world", container.get());
 	}
+
+	@Test
+	public void transitionAndTearDownTimingsShouldBeReported() {
+		List<String> events = new ArrayList<>();
+		InitListener listener = new InitListener() {
+			@Override
+			public <T> void onStateReached(NamedTypeAndValue<T> stateAndValue) {
+				events.add("reached " + stateAndValue.type().name());
+			}
+
+			@Override
+			public <T> void onStateTearDown(NamedTypeAndValue<T> stateAndValue) {
+				events.add("tearDown " + stateAndValue.type().name());
+			}
+
+			@Override
+			public void onTransitionStarted(StateID<?> state, long startedAt) {
+				events.add("start " + state.name());
+			}
+
+			@Override
+			public void onTransitionFinished(StateID<?> state, long startedAt, Duration duration) {
+				events.add("finish " + state.name());
+			}
+
+			@Override
+			public void onTransitionFailed(StateID<?> state, long startedAt, Duration duration, RuntimeException error) {
+				events.add("fail " + state.name() + ": " + error.getMessage());
+			}
+
+			@Override
+			public void onTearDownStarted(StateID<?> state, long startedAt) {
+				events.add("start tearDown " + state.name());
+			}
+
+			@Override
+			public void onTearDownFinished(StateID<?> state, long startedAt, Duration duration) {
+				events.add("finish tearDown " + state.name());
+			}
+		};
+		TransitionTimings timings = TransitionTimings.create();
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(StateID.of("a", String.class)).isReachedBy(() -> State.of(sleep(20, "a")))
+				.given(StateID.of("a", String.class)).state(StateID.of("b", String.class)).isDerivedBy(a -> a + "b")
+				.given(StateID.of("a", String.class)).state(StateID.of("c", String.class)).isDerivedBy(a -> {
+					throw new IllegalArgumentException("broken");
+				})
+				.build();
+
+		InitLike init = InitLike.with(routes);
+		try (InitLike.Init<String> state = init.init(StateID.of("b", String.class), listener, timings)) {
+			assertEquals("ab", state.current());
+		}
+
+		assertEquals("[start a, finish a, reached a, start b, finish b, reached b, "
+				+ "tearDown b, start tearDown b, finish tearDown b, tearDown a, start tearDown a, finish tearDown a]", events.toString());
+
+		events.clear();
+		try {
+			init.init(StateID.of("c", String.class), listener, timings);
+		}
+		catch (RuntimeException rx) {
+			// expected
+		}
+		assertTrue(events.contains("fail c: broken"));
+
+		assertEquals(2, timings.transitionOf(StateID.of("a", String.class)).get().count());
+		assertTrue(timings.transitionOf(StateID.of("a", String.class)).get().min().toMillis() >= 20);
+		assertEquals(1, timings.transitionOf(StateID.of("b", String.class)).get().count());
+		assertFalse(timings.transitionOf(StateID.of("c", String.class)).isPresent());
+		assertEquals(1, timings.failedTransitionOf(StateID.of("c", String.class)).get().count());
+		assertEquals(2, timings.tearDownOf(StateID.of("a", String.class)).get().count());
+	}
+
+	@Test
+	public void failedTearDownsShouldBeTimedSeparately() {
+		TransitionTimings timings = TransitionTimings.create();
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(StateID.of("a", String.class)).isReachedBy(() -> State.of("a", a -> {}))
+				.given(StateID.of("a", String.class)).state(StateID.of("b", String.class)).isReachedBy(a -> State.of(a + "b", b -> {
+					throw new IllegalStateException("broken");
+				}))
+				.build();
+
+		try (InitLike.Init<String> state = InitLike.with(routes).init(StateID.of("b", String.class), timings)) {
+			assertEquals("ab", state.current());
+		}
+		catch (TearDownException tx) {
+			// expected
+		}
+
+		assertEquals(1, timings.tearDownOf(StateID.of("a", String.class)).get().count());
+		assertFalse(timings.failedTearDownOf(StateID.of("a", String.class)).isPresent());
+		assertFalse(timings.tearDownOf(StateID.of("b", String.class)).isPresent());
+		assertEquals(1, timings.failedTearDownOf(StateID.of("b", String.class)).get().count());
+	}
+
+	private static <T> T sleep(long millis, T value) {
+		try {
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException ix) {
+			Thread.currentThread().interrupt();
+		}
+		return value;
+	}
 }
@@ -18,6 +18,9 @@ package de.flapdoodle.transition.initlike;
 
 import static org.junit.Assert.assertEquals;
 
+import java.time.Duration;
+import java.util.Optional;
+
 import org.junit.Test;
 
 import de.flapdoodle.transition.StateID;
@@ -38,6 +41,23 @@ public class InitRoutesTest {
 		assertEquals(2, routes.all().size());
 	}
 
+	@Test
+	public void replaceShouldResetRouteOptions() {
+		Start<String> start = Start.of(typeOf(String.class));
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.rawBuilder()
+				.add(start, () -> State.of("12"))
+				.options(start, RouteOptions.builder().timeout(Duration.ofSeconds(1)).shared(true).build())
+				.build();
+
+		InitRoutes<SingleDestination<?>> replaced = InitRoutes.rawBuilder()
+				.addAll(routes)
+				.replace(start, () -> State.of("13"))
+				.build();
+
+		assertEquals(Optional.of(Duration.ofSeconds(1)), routes.optionsOf(start).timeout());
+		assertEquals(RouteOptions.defaults(), replaced.optionsOf(start));
+	}
+
 	private static <T> StateID<T> typeOf(Class<T> type) {
 		return StateID.of(type);
 	}
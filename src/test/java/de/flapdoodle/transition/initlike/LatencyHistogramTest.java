@@ -0,0 +1,45 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.initlike;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Duration;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+	@Test
+	public void percentilesShouldBeBoundedByRecordedValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(Duration.ZERO, histogram.percentile(50));
+
+		for (int i = 1; i <= 99; i++) {
+			histogram.record(Duration.ofMillis(1));
+		}
+		histogram.record(Duration.ofSeconds(1));
+
+		assertEquals(100, histogram.count());
+		assertEquals(Duration.ofMillis(1), histogram.min());
+		assertEquals(Duration.ofSeconds(1), histogram.max());
+		assertEquals(Duration.ofNanos((99 * 1_000_000L + 1_000_000_000L) / 100), histogram.mean());
+		assertEquals(Duration.ofNanos((1L << 20) - 1), histogram.percentile(50));
+		assertEquals(Duration.ofNanos((1L << 20) - 1), histogram.percentile(99));
+		assertEquals(Duration.ofSeconds(1), histogram.percentile(100));
+	}
+}
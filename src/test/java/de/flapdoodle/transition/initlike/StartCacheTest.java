@@ -0,0 +1,181 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.initlike;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.flapdoodle.transition.StateID;
+import de.flapdoodle.transition.initlike.transitions.StartTransition;
+import de.flapdoodle.transition.routes.SingleDestination;
+
+public class StartCacheTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void cacheHitShouldSkipTransition() throws IOException {
+		AtomicInteger calls = new AtomicInteger();
+		Path directory = temp.newFolder().toPath();
+
+		InitRoutes<SingleDestination<?>> routes = InitRoutes.builder()
+				.state(String.class).cachedIn(StartCache.of(directory), "v1")
+				.isReachedBy(() -> State.of("hello " + calls.incrementAndGet()))
+				.build();
+
+		try (InitLike.Init<String> state = InitLike.with(routes).init(StateID.of(String.class))) {
+			assertEquals("hello 1", state.current());
+		}
+
+		InitRoutes<SingleDestination<?>> otherRun = InitRoutes.builder()
+				.state(String.class).cachedIn(StartCache.of(directory), "v1")
+				.isReachedBy(() -> State.of("hello " + calls.incrementAndGet()))
+				.build();
+
+		try (InitLike.Init<String> state = InitLike.with(otherRun).init(StateID.of(String.class))) {
+			assertEquals("hello 1", state.current());
+		}
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void otherFingerprintShouldNotMatch() throws IOException {
+		StartCache cache = StartCache.of(temp.newFolder().toPath());
+		AtomicInteger calls = new AtomicInteger();
+		StartTransition<String> transition = () -> State.of("hello " + calls.incrementAndGet());
+
+		assertEquals("hello 1", cache.cached(StateID.of(String.class), "v1", transition).get().value());
+		assertEquals("hello 2", cache.cached(StateID.of(String.class), "v2", transition).get().value());
+		assertEquals("hello 3", cache.cached(StateID.of("other", String.class), "v1", transition).get().value());
+		assertEquals("hello 1", cache.cached(StateID.of(String.class), "v1", transition).get().value());
+	}
+
+	@Test
+	public void leastRecentlyUsedEntriesShouldBeEvicted() throws IOException {
+		Path directory = temp.newFolder().toPath();
+		StartCache cache = StartCache.of(directory, 1);
+		AtomicInteger calls = new AtomicInteger();
+		StartTransition<String> transition = () -> State.of("hello " + calls.incrementAndGet());
+
+		assertEquals("hello 1", cache.cached(StateID.of(String.class), "v1", transition).get().value());
+		assertEquals("hello 2", cache.cached(StateID.of(String.class), "v2", transition).get().value());
+		assertEquals(1, Files.list(directory).filter(p -> p.toString().endsWith(".ser")).count());
+
+		assertEquals("hello 3", cache.cached(StateID.of(String.class), "v1", transition).get().value());
+		assertEquals("hello 3", cache.cached(StateID.of(String.class), "v1", transition).get().value());
+
+		cache.clear();
+		assertFalse(Files.list(directory).anyMatch(p -> p.toString().endsWith(".ser")));
+		assertEquals("hello 4", cache.cached(StateID.of(String.class), "v1", transition).get().value());
+	}
+
+	@Test
+	public void corruptEntryShouldBeReplaced() throws IOException {
+		Path directory = temp.newFolder().toPath();
+		StartCache cache = StartCache.of(directory);
+		AtomicInteger calls = new AtomicInteger();
+		StartTransition<String> transition = () -> State.of("hello " + calls.incrementAndGet());
+
+		assertEquals("hello 1", cache.cached(StateID.of(String.class), "v1", transition).get().value());
+		Files.list(directory).filter(p -> p.toString().endsWith(".ser"))
+				.forEach(p -> write(p, "broken"));
+
+		assertEquals("hello 2", cache.cached(StateID.of(String.class), "v1", transition).get().value());
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	public void hitAndMissShouldReturnStateWithoutTearDown() throws IOException {
+		StartCache cache = StartCache.of(temp.newFolder().toPath());
+		StartTransition<String> transition = () -> State.of("hello");
+
+		State<String> miss = cache.cached(StateID.of(String.class), "v1", transition).get();
+		State<String> hit = cache.cached(StateID.of(String.class), "v1", transition).get();
+
+		assertEquals("hello", miss.value());
+		assertEquals("hello", hit.value());
+		assertFalse(miss.onTearDown().isPresent());
+		assertFalse(hit.onTearDown().isPresent());
+	}
+
+	@Test
+	public void stateWithTearDownShouldBeTornDownAndRejected() throws IOException {
+		Path directory = temp.newFolder().toPath();
+		StartCache cache = StartCache.of(directory);
+		List<String> tearDowns = new ArrayList<>();
+		StartTransition<String> transition = () -> State.of("hello", tearDowns::add);
+
+		try {
+			cache.cached(StateID.of(String.class), "v1", transition).get();
+			fail("should not happen");
+		}
+		catch (IllegalArgumentException iax) {
+			assertTrue(iax.getMessage().contains("must not declare a teardown"));
+		}
+		assertEquals(Arrays.asList("hello"), tearDowns);
+		assertFalse(Files.list(directory).anyMatch(p -> p.toString().endsWith(".ser")));
+	}
+
+	@Test
+	public void entryOfOtherTypeShouldBeReplaced() throws IOException {
+		Path directory = temp.newFolder().toPath();
+		StartCache cache = StartCache.of(directory);
+		AtomicInteger calls = new AtomicInteger();
+		StartTransition<String> transition = () -> State.of("hello " + calls.incrementAndGet());
+
+		assertEquals("hello 1", cache.cached(StateID.of(String.class), "v1", transition).get().value());
+		Files.list(directory).filter(p -> p.toString().endsWith(".ser"))
+				.forEach(p -> serialize(p, 42));
+
+		assertEquals("hello 2", cache.cached(StateID.of(String.class), "v1", transition).get().value());
+		assertEquals("hello 2", cache.cached(StateID.of(String.class), "v1", transition).get().value());
+	}
+
+	private static void write(Path path, String content) {
+		try {
+			Files.write(path, content.getBytes());
+		}
+		catch (IOException iox) {
+			throw new RuntimeException(iox);
+		}
+	}
+
+	private static void serialize(Path path, Object value) {
+		try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(path))) {
+			out.writeObject(value);
+		}
+		catch (IOException iox) {
+			throw new RuntimeException(iox);
+		}
+	}
+}
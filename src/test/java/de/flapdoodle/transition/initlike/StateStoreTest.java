@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.initlike;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import de.flapdoodle.transition.StateID;
+import de.flapdoodle.transition.routes.RoutesAsGraph;
+import de.flapdoodle.transition.routes.SingleDestination;
+import de.flapdoodle.transition.routes.Start;
+
+public class StateStoreTest {
+
+	@Test
+	public void addedStatesShouldNotChangeParentStore() {
+		DependencyIndex index = indexOf(1000);
+		StateStore parent = StateStore.empty(index);
+
+		StateStore store = parent;
+		for (int i = 0; i < 1000; i += 7) {
+			store = store.with(Collections.singletonMap(StateID.of("s" + i, Integer.class), State.of(i)));
+		}
+		StateStore child = store.with(Collections.singletonMap(StateID.of("s999", Integer.class), State.of(999)));
+
+		assertEquals(0, parent.size());
+		assertEquals(143, store.size());
+		assertEquals(144, child.size());
+
+		assertEquals(Integer.valueOf(994), store.of(StateID.of("s994", Integer.class)));
+		assertTrue(child.contains(StateID.of("s999", Integer.class)));
+		assertFalse(store.contains(StateID.of("s999", Integer.class)));
+		assertNull(store.get(StateID.of("s1", Integer.class)));
+		assertFalse(store.contains(StateID.of("unknown", Integer.class)));
+	}
+
+	private static DependencyIndex indexOf(int states) {
+		InitRoutes.RawBuilder builder = InitRoutes.rawBuilder();
+		for (int i = 0; i < states; i++) {
+			int value = i;
+			builder.add(Start.of(StateID.of("s" + i, Integer.class)), () -> State.of(value));
+		}
+		InitRoutes<SingleDestination<?>> routes = builder.build();
+		return DependencyIndex.ofAcyclic(RoutesAsGraph.asGraph(routes.all())).get();
+	}
+}
@@ -16,15 +16,37 @@
  */
 package de.flapdoodle.transition.processlike;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.junit.Test;
 
+import de.flapdoodle.transition.GeneratedRoutes;
 import de.flapdoodle.transition.StateID;
+import de.flapdoodle.transition.processlike.exceptions.AbortException;
 import de.flapdoodle.transition.processlike.exceptions.RetryException;
 import de.flapdoodle.transition.routes.Bridge;
 import de.flapdoodle.transition.routes.End;
 import de.flapdoodle.transition.routes.PartingWay;
+import de.flapdoodle.transition.routes.Route;
 import de.flapdoodle.transition.routes.SingleSource;
 import de.flapdoodle.transition.routes.Start;
 import de.flapdoodle.types.Either;
@@ -122,6 +144,208 @@ public class ProcessEngineLikeTest {
 		pe.run(listener);
 	}
 
+	@Test
+	public void retryPolicyShouldDelayAndStopRetries() {
+		AtomicInteger calls = new AtomicInteger();
+		Bridge<String, Integer> parse = Bridge.of(StateID.of(String.class), StateID.of(Integer.class));
+		ProcessRoutes<SingleSource<?, ?>> routes = ProcessRoutes.builder()
+				.add(Start.of(StateID.of(String.class)), () -> "12")
+				.add(parse, a -> {
+					calls.incrementAndGet();
+					throw new RetryException("not yet");
+				})
+				.add(End.of(StateID.of(Integer.class)), i -> {
+				})
+				.retry(parse, RetryPolicy.fixed(Duration.ofMillis(5)).withMaxAttempts(3))
+				.build();
+
+		List<String> events = new ArrayList<>();
+		ProcessListener listener = new ProcessListener() {
+			@Override
+			public void onStateChange(Optional<? extends State<?>> lastState, State<?> newState) {
+			}
+
+			@Override
+			public void onStateChangeFailedWithRetry(Route<?> currentRoute, Optional<? extends State<?>> lastState) {
+			}
+
+			@Override
+			public void onRetryScheduled(Route<?> route, int failedAttempts, Duration delay) {
+				events.add("retry " + failedAttempts + " in " + delay.toMillis() + "ms");
+			}
+
+			@Override
+			public void onRetryExhausted(Route<?> route, int failedAttempts, RetryException cause) {
+				events.add("gave up after " + failedAttempts);
+			}
+		};
+
+		long startedAt = System.nanoTime();
+		try {
+			ProcessEngineLike.with(routes).run(listener);
+			fail("exception expected");
+		} catch (AbortException ax) {
+			assertTrue(ax.getCause() instanceof RetryException);
+		}
+		assertTrue(System.nanoTime() - startedAt >= Duration.ofMillis(10).toNanos());
+		assertEquals(3, calls.get());
+		assertEquals(Arrays.asList("retry 1 in 5ms", "retry 2 in 5ms", "gave up after 3"), events);
+	}
+
+	@Test
+	public void waitingForRetryShouldNotBlockOtherInstances() throws InterruptedException, ExecutionException {
+		AtomicInteger attempts = new AtomicInteger();
+		Bridge<Integer, String> work = Bridge.of(StateID.of(Integer.class), StateID.of(String.class));
+		ConcurrentLinkedQueue<Integer> finished = new ConcurrentLinkedQueue<>();
+		ProcessRoutes<SingleSource<?, ?>> routes = ProcessRoutes.builder()
+				.add(Start.of(StateID.of(Integer.class)), () -> 0)
+				.add(work, i -> {
+					if (i == 0 && attempts.incrementAndGet() < 3) {
+						throw new RetryException("later");
+					}
+					return "" + i;
+				})
+				.add(End.of(StateID.of(String.class)), s -> finished.add(Integer.valueOf(s)))
+				.retry(work, RetryPolicy.fixed(Duration.ofMillis(50)))
+				.build();
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			ProcessRuntime runtime = ProcessRuntime.of(ProcessEngineLike.with(routes), executor);
+			CompletableFuture<Void> slow = runtime.submit(0);
+			CompletableFuture<Void> fast = runtime.submit(1);
+			fast.get();
+			assertFalse(slow.isDone());
+			slow.get();
+			assertEquals(Arrays.asList(1, 0), new ArrayList<>(finished));
+			assertEquals(3, attempts.get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void generatedProcessShouldRunAllSteps() {
+		AtomicInteger changes = new AtomicInteger();
+		ProcessEngineLike.with(GeneratedRoutes.process(1000))
+				.run(ProcessListener.builder()
+						.onStateChange((last, current) -> changes.incrementAndGet())
+						.build());
+		assertEquals(1000, changes.get());
+	}
+
+	@Test
+	public void runWithoutListenerShouldFollowPartingWaysAndKeepAbortState() {
+		AtomicInteger result = new AtomicInteger();
+		ProcessRoutes<SingleSource<?, ?>> routes = ProcessRoutes.builder()
+				.add(Start.of(StateID.of("start", Integer.class)), () -> 0)
+				.add(Bridge.of(StateID.of("start", Integer.class), StateID.of("decide", Integer.class)), a -> a + 1)
+				.add(PartingWay.of(StateID.of("decide", Integer.class), StateID.of("start", Integer.class),
+						StateID.of("end", Integer.class)), a -> a < 3 ? Either.left(a) : Either.right(a))
+				.add(End.of(StateID.of("end", Integer.class)), result::set)
+				.build();
+
+		ProcessEngineLike.with(routes).run();
+		assertEquals(3, result.get());
+
+		ProcessRoutes<SingleSource<?, ?>> failing = ProcessRoutes.builder()
+				.add(Start.of(StateID.of(String.class)), () -> "foo")
+				.add(Bridge.of(StateID.of(String.class), StateID.of(Integer.class)), a -> Integer.valueOf(a))
+				.add(End.of(StateID.of(Integer.class)), i -> {
+				})
+				.build();
+
+		try {
+			ProcessEngineLike.with(failing).run();
+			fail("exception expected");
+		} catch (AbortException ax) {
+			assertTrue(ax.getCause() instanceof NumberFormatException);
+			assertEquals(State.of(StateID.of(String.class), "foo"), ax.currentState().get());
+		}
+	}
+
+	@Test
+	public void runAsyncShouldRunProcessesConcurrently() {
+		int processes = 8;
+		CountDownLatch allStarted = new CountDownLatch(processes);
+		ConcurrentLinkedQueue<Integer> results = new ConcurrentLinkedQueue<>();
+
+		ProcessRoutes<SingleSource<?, ?>> routes = ProcessRoutes.builder()
+				.add(Start.of(StateID.of(String.class)), () -> {
+					allStarted.countDown();
+					try {
+						if (!allStarted.await(10, TimeUnit.SECONDS)) {
+							throw new RuntimeException("timeout waiting for other processes");
+						}
+					} catch (InterruptedException ix) {
+						Thread.currentThread().interrupt();
+						throw new RuntimeException(ix);
+					}
+					return "12";
+				})
+				.add(Bridge.of(StateID.of(String.class), StateID.of(Integer.class)), a -> Integer.valueOf(a))
+				.add(End.of(StateID.of(Integer.class)), results::add)
+				.build();
+
+		ProcessEngineLike pe = ProcessEngineLike.with(routes);
+
+		List<CompletableFuture<Void>> running = new ArrayList<>();
+		for (int i = 0; i < processes; i++) {
+			running.add(pe.runAsync(ProcessListener.noop()).toCompletableFuture());
+		}
+		CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+
+		assertEquals(processes, results.size());
+	}
+
+	@Test
+	public void runAsyncShouldAbortOnError() {
+		ProcessRoutes<SingleSource<?, ?>> routes = ProcessRoutes.builder()
+				.add(Start.of(StateID.of(String.class)), () -> "foo")
+				.add(Bridge.of(StateID.of(String.class), StateID.of(Integer.class)), a -> Integer.valueOf(a))
+				.add(End.of(StateID.of(Integer.class)), i -> {
+				})
+				.build();
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			ProcessEngineLike.with(routes).runAsync(ProcessListener.noop(), executor).toCompletableFuture().get();
+			fail("exception expected");
+		} catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof AbortException);
+			assertTrue(ex.getCause().getCause() instanceof NumberFormatException);
+		} catch (InterruptedException ix) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(ix);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void runAsyncShouldCompleteOnErrorThrownByTransition() {
+		ProcessRoutes<SingleSource<?, ?>> routes = ProcessRoutes.builder()
+				.add(Start.of(StateID.of(String.class)), () -> "foo")
+				.add(Bridge.of(StateID.of(String.class), StateID.of(Integer.class)), a -> {
+					throw new AssertionError("broken");
+				})
+				.add(End.of(StateID.of(Integer.class)), i -> {
+				})
+				.build();
+
+		try {
+			ProcessEngineLike.with(routes).runAsync(ProcessListener.noop()).toCompletableFuture().get(10, TimeUnit.SECONDS);
+			fail("exception expected");
+		} catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof AssertionError);
+		} catch (TimeoutException tx) {
+			fail("process did not complete");
+		} catch (InterruptedException ix) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(ix);
+		}
+	}
+
 	private static String asString(Object value) {
 		return value != null ? value + "(" + value.getClass() + ")" : "null";
 	}
@@ -0,0 +1,236 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.processlike;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.flapdoodle.transition.StateID;
+import de.flapdoodle.transition.processlike.exceptions.AbortException;
+import de.flapdoodle.transition.routes.Bridge;
+import de.flapdoodle.transition.routes.End;
+import de.flapdoodle.transition.routes.SingleSource;
+import de.flapdoodle.transition.routes.Start;
+
+public class ProcessJournalTest {
+
+	@Rule
+	public TemporaryFolder temp = new TemporaryFolder();
+
+	@Test
+	public void resumeShouldContinueFromLastRecordedState() throws IOException {
+		Path file = temp.newFile("process.journal").toPath();
+		AtomicInteger expensive = new AtomicInteger();
+		AtomicBoolean crash = new AtomicBoolean(true);
+		AtomicInteger result = new AtomicInteger();
+
+		ProcessEngineLike engine = ProcessEngineLike.with(ProcessRoutes.builder()
+				.add(Start.of(StateID.of(Integer.class)), () -> 1)
+				.add(Bridge.of(StateID.of(Integer.class), StateID.of(String.class)), i -> "" + (i + expensive.incrementAndGet()))
+				.add(Bridge.of(StateID.of(String.class), StateID.of(Long.class)), s -> {
+					if (crash.get()) {
+						throw new IllegalStateException("crash");
+					}
+					return Long.valueOf(s);
+				})
+				.add(End.of(StateID.of(Long.class)), l -> result.set(l.intValue()))
+				.build());
+
+		try (ProcessJournal journal = ProcessJournal.open(file)) {
+			engine.run(journal, "first", ProcessListener.noop());
+			fail("exception expected");
+		} catch (AbortException ax) {
+			assertEquals("crash", ax.getCause().getMessage());
+		}
+
+		crash.set(false);
+		try (ProcessJournal journal = ProcessJournal.open(file)) {
+			assertEquals(State.of(StateID.of(String.class), "2"), journal.lastStateOf("first").get());
+			engine.resume(journal, "first", ProcessListener.noop());
+			assertTrue(journal.hasEnded("first"));
+		}
+
+		assertEquals(1, expensive.get());
+		assertEquals(2, result.get());
+
+		try (ProcessJournal journal = ProcessJournal.open(file)) {
+			assertTrue(journal.unfinished().isEmpty());
+			engine.resume(journal, "first", ProcessListener.noop());
+		}
+		assertEquals(1, expensive.get());
+	}
+
+	@Test
+	public void tornWriteAtTheEndShouldBeDiscarded() throws IOException {
+		Path file = temp.newFile("process.journal").toPath();
+		ProcessEngineLike engine = ProcessEngineLike.with(ProcessRoutes.builder()
+				.add(Start.of(StateID.of(String.class)), () -> "foo")
+				.add(Bridge.of(StateID.of(String.class), StateID.of(Integer.class)), s -> Integer.valueOf(s))
+				.add(End.of(StateID.of(Integer.class)), i -> {
+				})
+				.build());
+
+		try (ProcessJournal journal = ProcessJournal.open(file)) {
+			engine.run(journal, "broken", ProcessListener.noop());
+			fail("exception expected");
+		} catch (AbortException ax) {
+			assertTrue(ax.getCause() instanceof NumberFormatException);
+		}
+
+		long size = Files.size(file);
+		Files.write(file, new byte[] { 0, 0, 0, 42, 1, 2, 3 }, StandardOpenOption.APPEND);
+
+		try (ProcessJournal journal = ProcessJournal.open(file)) {
+			assertEquals(size, Files.size(file));
+			assertEquals(State.of(StateID.of(String.class), "foo"), journal.lastStateOf("broken").get());
+		}
+	}
+
+	@Test
+	public void concurrentInstancesShouldShareFsyncBatches() throws IOException, InterruptedException {
+		Path file = temp.newFile("process.journal").toPath();
+		CyclicBarrier allThreadsInTransition = new CyclicBarrier(8);
+		ProcessEngineLike engine = ProcessEngineLike.with(ProcessRoutes.builder()
+				.add(Start.of(StateID.of(Integer.class)), () -> 0)
+				.add(Bridge.of(StateID.of(Integer.class), StateID.of(String.class)), i -> {
+					await(allThreadsInTransition);
+					return "#" + i;
+				})
+				.add(End.of(StateID.of(String.class)), s -> {
+				})
+				.build());
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try (ProcessJournal journal = ProcessJournal.open(file)) {
+			ProcessRuntime runtime = ProcessRuntime.of(engine, executor, ProcessListener.noop(), journal);
+			List<CompletableFuture<Void>> instances = IntStream.range(0, 200)
+					.mapToObj(i -> runtime.submit("instance-" + i, i))
+					.collect(Collectors.toList());
+			CompletableFuture.allOf(instances.toArray(new CompletableFuture<?>[0])).join();
+
+			assertEquals(200 * 3, journal.records());
+			assertTrue(journal.batches() + " batches", journal.batches() < journal.records());
+			assertTrue(journal.unfinished().isEmpty());
+		} finally {
+			executor.shutdown();
+		}
+
+		try (ProcessJournal journal = ProcessJournal.open(file)) {
+			assertTrue(journal.hasEnded("instance-17"));
+			assertFalse(journal.lastStateOf("instance-17").isPresent());
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void failedWriterShouldFailPendingAndLaterAppends() throws IOException {
+		Path file = temp.newFile("failing.journal").toPath();
+		ProcessEngineLike engine = ProcessEngineLike.with(ProcessRoutes.builder()
+				.add(Start.of(StateID.of(String.class)), () -> "foo")
+				.add(End.of(StateID.of(String.class)), s -> {
+				})
+				.build());
+
+		try (ProcessJournal journal = ProcessJournal.open(file)) {
+			Thread.getAllStackTraces().keySet().stream()
+					.filter(thread -> thread.getName().equals("process-journal-failing.journal"))
+					.forEach(Thread::interrupt);
+
+			List<Throwable> failures = new ArrayList<>();
+			for (String instanceId : Arrays.asList("first", "second")) {
+				try {
+					engine.run(journal, instanceId, ProcessListener.noop());
+					fail("exception expected");
+				} catch (AbortException ax) {
+					failures.add(ax.getCause());
+				}
+			}
+			assertTrue(failures.get(0) instanceof IllegalStateException || failures.get(0) instanceof UncheckedIOException);
+			assertSame(failures.get(0), failures.get(1));
+			assertEquals(0, journal.records());
+		}
+	}
+
+	@Test
+	public void runtimeShouldResumeUnfinishedInstances() throws IOException {
+		Path file = temp.newFile("process.journal").toPath();
+		AtomicBoolean crash = new AtomicBoolean(true);
+		AtomicInteger sum = new AtomicInteger();
+		ProcessEngineLike engine = ProcessEngineLike.with(ProcessRoutes.builder()
+				.add(Start.of(StateID.of(Integer.class)), () -> 0)
+				.add(Bridge.of(StateID.of(Integer.class), StateID.of(String.class)), i -> {
+					if (crash.get() && i % 2 == 1) {
+						throw new IllegalStateException("crash");
+					}
+					return "" + i;
+				})
+				.add(End.of(StateID.of(String.class)), s -> sum.addAndGet(Integer.valueOf(s)))
+				.build());
+
+		try (ProcessJournal journal = ProcessJournal.open(file)) {
+			ProcessRuntime runtime = ProcessRuntime.of(engine, Runnable::run, ProcessListener.noop(), journal);
+			IntStream.range(0, 10).forEach(i -> runtime.submit("instance-" + i, i));
+			assertEquals(5, runtime.throughput().failed());
+		}
+		assertEquals(0 + 2 + 4 + 6 + 8, sum.get());
+
+		crash.set(false);
+		try (ProcessJournal journal = ProcessJournal.open(file)) {
+			ProcessRuntime runtime = ProcessRuntime.of(engine, Runnable::run, ProcessListener.noop(), journal);
+			assertEquals(5, runtime.resumeUnfinished().size());
+			assertEquals(5, runtime.throughput().completed());
+		}
+		assertEquals(45, sum.get());
+	}
+
+	private static void await(CyclicBarrier barrier) {
+		try {
+			barrier.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException ix) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(ix);
+		} catch (BrokenBarrierException | TimeoutException ex) {
+			throw new RuntimeException(ex);
+		}
+	}
+}
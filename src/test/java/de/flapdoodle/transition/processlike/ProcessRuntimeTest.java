@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.processlike;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import de.flapdoodle.transition.StateID;
+import de.flapdoodle.transition.processlike.exceptions.AbortException;
+import de.flapdoodle.transition.routes.Bridge;
+import de.flapdoodle.transition.routes.End;
+import de.flapdoodle.transition.routes.SingleSource;
+import de.flapdoodle.transition.routes.Start;
+
+public class ProcessRuntimeTest {
+
+	@Test
+	public void everyInstanceShouldRunWithItsOwnStartValue() throws InterruptedException {
+		Map<Integer, String> results = new ConcurrentHashMap<>();
+
+		ProcessRoutes<SingleSource<?, ?>> routes = ProcessRoutes.builder()
+				.add(Start.of(StateID.of(Integer.class)), () -> 0)
+				.add(Bridge.of(StateID.of(Integer.class), StateID.of(String.class)), i -> {
+					if (i == 13) {
+						throw new IllegalStateException("unlucky");
+					}
+					return "#" + i;
+				})
+				.add(End.of(StateID.of(String.class)), s -> results.put(Integer.valueOf(s.substring(1)), s))
+				.build();
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			ProcessRuntime runtime = ProcessRuntime.of(ProcessEngineLike.with(routes), executor);
+			assertEquals(StateID.of(Integer.class), runtime.startType());
+
+			List<CompletableFuture<Void>> instances = runtime.submitAll(IntStream.range(0, 100)
+					.boxed()
+					.collect(Collectors.toList()));
+
+			for (int i = 0; i < instances.size(); i++) {
+				try {
+					instances.get(i).get();
+					assertEquals("#" + i, results.get(i));
+				} catch (ExecutionException ex) {
+					assertEquals(13, i);
+					assertTrue(ex.getCause() instanceof AbortException);
+					assertTrue(ex.getCause().getCause() instanceof IllegalStateException);
+				}
+			}
+
+			assertEquals(99, results.size());
+
+			ProcessThroughput throughput = runtime.throughput();
+			assertEquals(100, throughput.started());
+			assertEquals(99, throughput.completed());
+			assertEquals(1, throughput.failed());
+			assertEquals(0, throughput.running());
+			assertEquals(99 * 2, throughput.steps());
+			assertTrue(throughput.instancesPerSecond() > 0);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void startValueOfWrongTypeShouldFailInstance() throws InterruptedException {
+		ProcessRoutes<SingleSource<?, ?>> routes = ProcessRoutes.builder()
+				.add(Start.of(StateID.of(Integer.class)), () -> 0)
+				.add(End.of(StateID.of(Integer.class)), i -> {
+				})
+				.build();
+
+		ProcessRuntime runtime = ProcessRuntime.of(ProcessEngineLike.with(routes), Runnable::run);
+		try {
+			runtime.submit("foo").get();
+			fail("exception expected");
+		} catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof IllegalArgumentException);
+		}
+		assertEquals(1, runtime.throughput().failed());
+	}
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (C) 2016
+ *   Michael Mosmann <michael@mosmann.de>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.flapdoodle.transition.processlike;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.Test;
+
+public class RetryPolicyTest {
+
+	@Test
+	public void immediateShouldRetryForeverWithoutDelay() {
+		RetryPolicy policy = RetryPolicy.immediate();
+		assertEquals(Duration.ZERO, policy.nextDelay(1, Duration.ZERO).get());
+		assertEquals(Duration.ZERO, policy.nextDelay(1000, Duration.ofHours(1)).get());
+	}
+
+	@Test
+	public void exponentialShouldDoubleUpToMaxDelay() {
+		RetryPolicy policy = RetryPolicy.exponential(Duration.ofMillis(10), Duration.ofMillis(50));
+		assertEquals(Duration.ofMillis(10), policy.nextDelay(1, Duration.ZERO).get());
+		assertEquals(Duration.ofMillis(20), policy.nextDelay(2, Duration.ZERO).get());
+		assertEquals(Duration.ofMillis(40), policy.nextDelay(3, Duration.ZERO).get());
+		assertEquals(Duration.ofMillis(50), policy.nextDelay(4, Duration.ZERO).get());
+		assertEquals(Duration.ofMillis(50), policy.nextDelay(100, Duration.ZERO).get());
+	}
+
+	@Test
+	public void jitterShouldStayWithinBounds() {
+		RetryPolicy policy = RetryPolicy.fixed(Duration.ofMillis(100)).withJitter(0.2);
+		for (int i = 0; i < 100; i++) {
+			Duration delay = policy.nextDelay(1, Duration.ZERO).get();
+			assertTrue("" + delay, delay.compareTo(Duration.ofMillis(80)) >= 0);
+			assertTrue("" + delay, delay.compareTo(Duration.ofMillis(120)) <= 0);
+		}
+	}
+
+	@Test
+	public void maxAttemptsAndBudgetShouldStopRetries() {
+		RetryPolicy attempts = RetryPolicy.fixed(Duration.ofMillis(10)).withMaxAttempts(3);
+		assertTrue(attempts.nextDelay(2, Duration.ZERO).isPresent());
+		assertFalse(attempts.nextDelay(3, Duration.ZERO).isPresent());
+
+		RetryPolicy budget = RetryPolicy.fixed(Duration.ofMillis(10)).withBudget(Duration.ofMillis(25));
+		assertTrue(budget.nextDelay(2, Duration.ofMillis(15)).isPresent());
+		assertFalse(budget.nextDelay(3, Duration.ofMillis(20)).isPresent());
+	}
+}